@@ -9,27 +9,55 @@
  */
 package officelove;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import kiss.I;
+import kiss.WiseFunction;
 import psychopath.Directory;
 import psychopath.File;
 import psychopath.Locator;
 
 public class LibreOffice {
 
+    /** The maximum number of files in one batch conversion. */
+    private static final int BATCH_SIZE = 100;
+
+    /** The maximum length of file paths in one batch conversion. */
+    private static final int BATCH_LENGTH = 16 * 1024;
+
     /** The initialization flag. */
     private static boolean initialized;
 
     /** The path to executable office command. */
     private static String soffice;
 
-    /** The program cache. */
-    private static boolean cached;
+    /** The maximum number of concurrent office instances. */
+    private static int poolSize = Runtime.getRuntime().availableProcessors();
+
+    /** The pool of resident office instances. */
+    private static OfficePool pool;
+
+    /** The registration flag of shutdown hook. */
+    private static boolean hooked;
+
+    /** The working directory for in-memory conversion. */
+    private static Path workspace;
+
+    /** The serial number of in-memory conversion. */
+    private static final AtomicLong serial = new AtomicLong();
 
     /**
      * Get the location of LibreOffice.
@@ -38,6 +66,65 @@ public class LibreOffice {
         return soffice;
     }
 
+    /**
+     * Specify the location of LibreOffice explicitly.
+     * 
+     * @param path The path to executable office command.
+     */
+    public static synchronized void location(String path) {
+        if (!check(path)) {
+            throw new IllegalArgumentException("Libre Office is not found at [" + path + "].");
+        }
+
+        shutdown();
+        initialized = true;
+        soffice = path;
+    }
+
+    /**
+     * Get the maximum number of concurrent office instances.
+     * 
+     * @return
+     */
+    public static synchronized int poolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Configure the maximum number of concurrent office instances. Each instance has its own user
+     * profile, so the conversions on the different instances run in parallel.
+     * 
+     * @param size A positive number.
+     */
+    public static synchronized void poolSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive. [" + size + "]");
+        }
+
+        shutdown();
+        poolSize = size;
+    }
+
+    /**
+     * Configure the working directory for in-memory conversion. By default, the RAM disk
+     * (/dev/shm) is used if it is available, otherwise the temporary directory is used.
+     * 
+     * @param directory
+     */
+    public static synchronized void workspace(Directory directory) {
+        workspace = directory.absolutize().asJavaPath();
+    }
+
+    /**
+     * Stop all resident office instances. They will be restarted on the next conversion.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
     /**
      * Convert file.
      * 
@@ -45,12 +132,204 @@ public class LibreOffice {
      * @param output
      */
     public static void convert(File input, File output) {
+        OfficeInstance.await(convertAsync(input, output));
+    }
+
+    /**
+     * Convert file asynchronously. The conversion can be limited by
+     * {@link CompletableFuture#orTimeout(long, java.util.concurrent.TimeUnit)} and stopped by
+     * {@link CompletableFuture#cancel(boolean)}, both of them kill the office process.
+     * 
+     * @param input
+     * @param output
+     * @return The converted file.
+     */
+    public static CompletableFuture<File> convertAsync(File input, File output) {
         String inputFilePath = input.absolutize().toString();
         Directory outputDirectory = output.absolutize().parent();
 
-        execute("--convert-to", output.extension(), "--outdir", outputDirectory.toString(), inputFilePath);
+        return then(execute("--convert-to", output.extension(), "--outdir", outputDirectory.toString(), inputFilePath), code -> {
+            outputDirectory.file(input.base()).extension(output.extension()).moveTo(output);
+            return output;
+        });
+    }
+
+    /**
+     * Convert the document in memory. The document is written only once to the working directory
+     * (RAM disk if available) and the converted file is deleted when the returned stream is
+     * closed.
+     * 
+     * @param input The document data.
+     * @param extension The extension of the document like "docx".
+     * @param format The output format like "pdf" or "pdf:writer_pdf_Export".
+     * @return The converted data.
+     */
+    public static InputStream convert(byte[] input, String extension, String format) {
+        return OfficeInstance.await(convertAsync(input, extension, format));
+    }
+
+    /**
+     * Convert the document in memory asynchronously.
+     * 
+     * @param input The document data.
+     * @param extension The extension of the document like "docx".
+     * @param format The output format like "pdf" or "pdf:writer_pdf_Export".
+     * @return The converted data.
+     */
+    public static CompletableFuture<InputStream> convertAsync(byte[] input, String extension, String format) {
+        if (format == null || format.isBlank()) {
+            throw new IllegalArgumentException("Format is unknown, please specify the valid format.");
+        }
+
+        try {
+            Path directory = workspace();
+            String base = "officelove" + serial.incrementAndGet();
+            Path in = Files.write(directory.resolve(base + "." + extension), input);
+            Path out = directory.resolve(base + "." + extension(format));
+
+            CompletableFuture<InputStream> future = then(execute("--convert-to", format, "--outdir", directory.toString(), in
+                    .toString()), code -> {
+                        if (Files.notExists(out)) {
+                            throw new IllegalStateException("Conversion to [" + format + "] has failed.");
+                        }
+                        return new Transient(out);
+                    });
+
+            future.whenComplete((stream, error) -> {
+                try {
+                    Files.deleteIfExists(in);
+                    if (error != null) {
+                        Files.deleteIfExists(out);
+                    }
+                } catch (IOException e) {
+                    // ignore
+                }
+            });
+            return future;
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Get the working directory for in-memory conversion.
+     * 
+     * @return
+     */
+    private static synchronized Path workspace() throws IOException {
+        if (workspace == null) {
+            Path ram = Path.of("/dev/shm");
+            Path base = Files.isDirectory(ram) && Files.isWritable(ram) ? ram : Path.of(System.getProperty("java.io.tmpdir"));
+
+            workspace = base.resolve("officelove" + ProcessHandle.current().pid());
+            workspace.toFile().deleteOnExit();
+        }
+        return Files.createDirectories(workspace);
+    }
+
+    /**
+     * Compute the file extension from the output format.
+     * 
+     * @param format
+     * @return
+     */
+    private static String extension(String format) {
+        int filter = format.indexOf(':');
+        return filter == -1 ? format : format.substring(0, filter);
+    }
+
+    /**
+     * Convert many files at once. The inputs are grouped into batches and each batch is converted
+     * by one office command, so the cost of the process launch is paid per batch instead of per
+     * file. The batches run in parallel on the pool of office instances.
+     * <p>
+     * The files which have the same base name would overwrite each other's output, so the second
+     * and later ones are converted into the numbered subdirectory. (e.g. the second "report.docx"
+     * is converted to "output/1/report.pdf")
+     * </p>
+     * 
+     * @param inputs The files to convert.
+     * @param format The output format like "pdf" or "pdf:writer_pdf_Export".
+     * @param output The output directory.
+     * @return The conversion result of each input in the same order.
+     */
+    public static List<Conversion> convertAll(List<File> inputs, String format, Directory output) {
+        if (format == null || format.isBlank()) {
+            throw new IllegalArgumentException("Format is unknown, please specify the valid format.");
+        }
+
+        String extension = extension(format);
+
+        // assign the output directory to each input by the occurrence of its base name
+        Map<String, Integer> occurrences = new HashMap();
+        Map<Directory, List<File>> groups = new LinkedHashMap();
+        Directory[] directories = new Directory[inputs.size()];
+        for (int i = 0; i < inputs.size(); i++) {
+            File input = inputs.get(i);
+            int occurrence = occurrences.merge(input.base(), 1, Integer::sum) - 1;
+
+            directories[i] = occurrence == 0 ? output : output.directory(String.valueOf(occurrence));
+            groups.computeIfAbsent(directories[i], key -> new ArrayList()).add(input);
+
+            // remove the stale output to detect the failure of conversion
+            directories[i].file(input.base()).extension(extension).delete();
+        }
+
+        List<CompletableFuture<Integer>> executions = new ArrayList();
+        for (Entry<Directory, List<File>> group : groups.entrySet()) {
+            Directory directory = group.getKey().create();
+
+            for (List<File> batch : batch(group.getValue())) {
+                List<String> command = new ArrayList();
+                command.add("--convert-to");
+                command.add(format);
+                command.add("--outdir");
+                command.add(directory.absolutize().toString());
+
+                for (File input : batch) {
+                    command.add(input.absolutize().toString());
+                }
+                executions.add(pool().executeAsync(command).exceptionally(e -> -1));
+            }
+        }
+        OfficeInstance.await(CompletableFuture.allOf(executions.toArray(CompletableFuture[]::new)));
+
+        List<Conversion> conversions = new ArrayList();
+        for (int i = 0; i < inputs.size(); i++) {
+            File input = inputs.get(i);
+            File converted = directories[i].file(input.base()).extension(extension);
+            conversions.add(new Conversion(input, converted.isPresent() ? converted : null));
+        }
+        return conversions;
+    }
+
+    /**
+     * Group the inputs into batches. The inputs must have the distinct base names.
+     * 
+     * @param inputs
+     * @return
+     */
+    private static List<List<File>> batch(List<File> inputs) {
+        List<List<File>> batches = new ArrayList();
+        List<File> batch = new ArrayList();
+        int length = 0;
+
+        for (File input : inputs) {
+            int size = input.absolutize().toString().length() + 1;
+
+            if (!batch.isEmpty() && (BATCH_SIZE <= batch.size() || BATCH_LENGTH < length + size)) {
+                batches.add(batch);
+                batch = new ArrayList();
+                length = 0;
+            }
+            batch.add(input);
+            length += size;
+        }
 
-        outputDirectory.file(input.base()).extension(output.extension()).moveTo(output);
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
     }
 
     /**
@@ -59,7 +338,17 @@ public class LibreOffice {
      * @param input
      */
     public static void print(File input) {
-        execute("-p", input.absolutize().toString());
+        OfficeInstance.await(printAsync(input));
+    }
+
+    /**
+     * Print file asynchronously.
+     * 
+     * @param input
+     * @return The printed file.
+     */
+    public static CompletableFuture<File> printAsync(File input) {
+        return then(execute("-p", input.absolutize().toString()), code -> input);
     }
 
     /**
@@ -69,48 +358,107 @@ public class LibreOffice {
      * @param printer
      */
     public static void print(File input, String printer) {
+        OfficeInstance.await(printAsync(input, printer));
+    }
+
+    /**
+     * Print file by the specified printer asynchronously.
+     * 
+     * @param input
+     * @param printer
+     * @return The printed file.
+     */
+    public static CompletableFuture<File> printAsync(File input, String printer) {
         if (printer == null) {
-            print(input);
+            return printAsync(input);
         } else {
-            execute("--pt", printer, input.absolutize().toString());
+            return then(execute("--pt", printer, input.absolutize().toString()), code -> input);
         }
     }
 
     /**
-     * Execute the libereoffice command.
+     * Print all files by the specified printer in one office command asynchronously.
+     * 
+     * @param inputs
+     * @param printer The printer name or null for the default printer.
+     * @return The printed files.
+     */
+    public static CompletableFuture<List<File>> printAsync(List<File> inputs, String printer) {
+        List<String> commands = new ArrayList();
+        if (printer == null) {
+            commands.add("-p");
+        } else {
+            commands.add("--pt");
+            commands.add(printer);
+        }
+
+        for (File input : inputs) {
+            commands.add(input.absolutize().toString());
+        }
+
+        return then(execute(commands.toArray(String[]::new)), code -> {
+            if (code != 0) {
+                throw new IllegalStateException("Office exits with code " + code + " while printing " + inputs + ".");
+            }
+            return inputs;
+        });
+    }
+
+    /**
+     * Execute the libereoffice command on the idle resident instance.
      * 
      * @param commands
+     * @return An exit code.
      */
-    private static synchronized void execute(String... commands) {
-        search();
+    private static CompletableFuture<Integer> execute(String... commands) {
+        return pool().executeAsync(List.of(commands));
+    }
 
-        List<String> command = new ArrayList();
-        command.add(soffice.toString());
-        command.add("--nolockcheck");
-        command.add("--nologo");
-        command.add("--headless");
-        command.add("--norestore");
-        command.add("--nofirststartwizard");
-        command.addAll(Arrays.asList(commands));
+    /**
+     * Chain the action after the execution. Unlike {@link CompletableFuture#thenApply(Function)},
+     * the cancellation and timeout of the returned future are propagated to the execution, so the
+     * office process will be killed.
+     * 
+     * @param execution
+     * @param action
+     * @return
+     */
+    private static <R> CompletableFuture<R> then(CompletableFuture<Integer> execution, WiseFunction<Integer, R> action) {
+        CompletableFuture<R> future = new CompletableFuture();
+        future.whenComplete((value, error) -> execution.cancel(false));
 
-        try {
-            ProcessBuilder builder = new ProcessBuilder(command);
-            builder.redirectError();
-            builder.redirectOutput();
-            builder.start().waitFor();
-
-            // There is a reason why Quick Start mode is not activated before the first run of
-            // Libereoffice. If another task (e.g., converting to PDF) is executed immediately after
-            // Quick Start mode is launched, the task's exit signal will be notified first and all
-            // processes will be forced to terminate. So we avoid this by running the quick start
-            // mode after the task is finished.
-            if (cached == false) {
-                cached = true;
-                new ProcessBuilder(soffice, "--quickstart").start().waitFor(250, TimeUnit.MILLISECONDS);
+        execution.whenComplete((code, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                try {
+                    future.complete(action.apply(code));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Get the pool of resident office instances.
+     * 
+     * @return
+     */
+    private static synchronized OfficePool pool() {
+        if (pool == null) {
+            search();
+
+            pool = new OfficePool(soffice, poolSize);
+
+            // the hook stops the current pool, so it is registered only once
+            if (!hooked) {
+                hooked = true;
+                Runtime.getRuntime().addShutdownHook(new Thread(LibreOffice::shutdown));
             }
-        } catch (Exception e) {
-            throw I.quiet(e);
         }
+        return pool;
     }
 
     /**
@@ -177,4 +525,51 @@ public class LibreOffice {
     private static boolean check(File file) {
         return file != null && file.isPresent();
     }
+
+    /**
+     * The result of conversion.
+     * 
+     * @param input The source file.
+     * @param output The converted file or null when the conversion has failed.
+     */
+    public record Conversion(File input, File output) {
+
+        /**
+         * Check whether the conversion has succeeded or not.
+         * 
+         * @return
+         */
+        public boolean isSucceeded() {
+            return output != null;
+        }
+    }
+
+    /**
+     * The converted data which is deleted on close.
+     */
+    private static class Transient extends FilterInputStream {
+
+        /** The converted file. */
+        private final Path path;
+
+        /**
+         * @param path
+         */
+        private Transient(Path path) throws IOException {
+            super(Files.newInputStream(path));
+            this.path = path;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove;
+
+import java.lang.ProcessBuilder.Redirect;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import kiss.I;
+import psychopath.Directory;
+import psychopath.Locator;
+
+/**
+ * The long-lived headless LibreOffice instance.
+ * <p>
+ * The resident process owns its own user profile and listens on the local pipe. Each command is
+ * launched with the same profile, so LibreOffice hands it over to the resident process instead of
+ * booting the whole office again. The resident process is checked before each command and is
+ * restarted when it has crashed.
+ * </p>
+ * <p>
+ * The command is awaited by {@link Process#onExit()}, so no thread is parked while the office is
+ * working. When the returned future is cancelled or timed out, the child process is killed.
+ * </p>
+ */
+class OfficeInstance {
+
+    /** The time to wait for the resident process to be ready. */
+    private static final long READY_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
+    /** The serial number of instance. */
+    private static int serial;
+
+    /** The path to executable office command. */
+    private final String soffice;
+
+    /** The dedicated user profile. */
+    private final Directory profile;
+
+    /** The pipe name. */
+    private final String pipe;
+
+    /** The lock for booting and launching. It doesn't pin the carrier of virtual thread. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** The resident process. */
+    private volatile Process resident;
+
+    /** The number of restarts. */
+    private volatile int restarts;
+
+    /**
+     * Create the new instance.
+     * 
+     * @param soffice The path to executable office command.
+     */
+    OfficeInstance(String soffice) {
+        synchronized (OfficeInstance.class) {
+            this.pipe = "officelove" + ProcessHandle.current().pid() + "_" + serial++;
+        }
+        this.soffice = soffice;
+        this.profile = Locator.temporaryDirectory(pipe);
+    }
+
+    /**
+     * Execute the office command on this instance.
+     * 
+     * @param commands
+     * @return An exit code.
+     */
+    int execute(List<String> commands) {
+        return await(executeAsync(commands));
+    }
+
+    /**
+     * Execute the office command on this instance asynchronously.
+     * 
+     * @param commands
+     * @return An exit code.
+     */
+    CompletableFuture<Integer> executeAsync(List<String> commands) {
+        CompletableFuture<Integer> future = new CompletableFuture();
+        // Booting the resident process may take a while, so it must not block the caller.
+        Thread.startVirtualThread(() -> execute(commands, future, 0));
+        return future;
+    }
+
+    /**
+     * Launch the office command and complete the future on its exit.
+     * 
+     * @param commands
+     * @param future
+     * @param retry
+     */
+    private void execute(List<String> commands, CompletableFuture<Integer> future, int retry) {
+        if (future.isDone()) {
+            return; // cancelled already
+        }
+
+        try {
+            Process process = launch(commands);
+
+            // kill the child process when the caller cancels or times out
+            future.whenComplete((code, error) -> {
+                if (error != null) {
+                    process.destroyForcibly();
+                }
+            });
+
+            process.onExit().whenComplete((exited, error) -> {
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else if (isAlive() || 1 <= retry) {
+                    future.complete(exited.exitValue());
+                } else {
+                    // The resident process has crashed while executing the command, so we must
+                    // retry it on the restarted process only once.
+                    Thread.startVirtualThread(() -> execute(commands, future, retry + 1));
+                }
+            });
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Boot the resident process if needed and launch the office command.
+     * 
+     * @param commands
+     * @return
+     */
+    private Process launch(List<String> commands) throws Exception {
+        lock.lock();
+        try {
+            boot();
+
+            return new ProcessBuilder(command(commands)).redirectOutput(Redirect.DISCARD).redirectError(Redirect.DISCARD).start();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Check the health of the resident process.
+     * 
+     * @return
+     */
+    boolean isAlive() {
+        Process process = resident;
+        return process != null && process.isAlive();
+    }
+
+    /**
+     * Get the number of restarts of the resident process.
+     * 
+     * @return
+     */
+    int restarts() {
+        return restarts;
+    }
+
+    /**
+     * Boot the resident process if it is not alive. The caller must hold the lock.
+     */
+    private void boot() throws Exception {
+        if (resident != null && resident.isAlive()) {
+            return;
+        }
+
+        if (resident != null) {
+            restarts++;
+        }
+
+        resident = new ProcessBuilder(command(List.of("--invisible", "--accept=pipe,name=" + pipe + ";urp;")))
+                .redirectOutput(Redirect.DISCARD)
+                .redirectError(Redirect.DISCARD)
+                .start();
+
+        // If another command is executed before the resident process is ready, the command will
+        // become the main process and the resident process will exit immediately. So we wait
+        // until the user profile is initialized.
+        long limit = System.currentTimeMillis() + READY_TIMEOUT;
+        while (resident.isAlive() && profile.directory("user").isAbsent() && System.currentTimeMillis() < limit) {
+            Thread.sleep(100);
+        }
+    }
+
+    /**
+     * Stop the resident process.
+     */
+    void shutdown() {
+        lock.lock();
+        try {
+            if (resident != null) {
+                resident.destroy();
+                resident = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Build the full command line.
+     * 
+     * @param commands
+     * @return
+     */
+    private List<String> command(List<String> commands) {
+        List<String> command = new ArrayList();
+        command.add(soffice);
+        command.add("-env:UserInstallation=" + profile.asJavaFile().toPath().toUri());
+        command.add("--nolockcheck");
+        command.add("--nologo");
+        command.add("--headless");
+        command.add("--norestore");
+        command.add("--nofirststartwizard");
+        command.addAll(commands);
+        return command;
+    }
+
+    /**
+     * Wait for the result of the asynchronous execution. The execution is cancelled when the
+     * current thread is interrupted.
+     * 
+     * @param future
+     * @return
+     */
+    static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw I.quiet(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw I.quiet(e);
+        }
+    }
+}
\ No newline at end of file
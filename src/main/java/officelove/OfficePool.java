@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The pool of isolated office instances.
+ * <p>
+ * Each instance has its own user profile, so the commands on the different instances never block
+ * each other. The instance is booted lazily and the waiting callers are served in arrival order.
+ * </p>
+ */
+class OfficePool {
+
+    /** The path to executable office command. */
+    private final String soffice;
+
+    /** The maximum number of instances. */
+    private final int size;
+
+    /** The idle instances. */
+    private final Deque<OfficeInstance> idle = new ArrayDeque();
+
+    /** The callers waiting for the idle instance in arrival order. */
+    private final Deque<CompletableFuture<OfficeInstance>> waiters = new ArrayDeque();
+
+    /** The all created instances. */
+    private final List<OfficeInstance> instances = new ArrayList();
+
+    /**
+     * @param soffice The path to executable office command.
+     * @param size The maximum number of instances.
+     */
+    OfficePool(String soffice, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive. [" + size + "]");
+        }
+
+        this.soffice = soffice;
+        this.size = size;
+    }
+
+    /**
+     * Execute the office command on the idle instance. If all instances are busy, wait for one of
+     * them in arrival order.
+     * 
+     * @param commands
+     * @return An exit code.
+     */
+    int execute(List<String> commands) {
+        return OfficeInstance.await(executeAsync(commands));
+    }
+
+    /**
+     * Execute the office command on the idle instance asynchronously. If all instances are busy,
+     * the command is queued in arrival order. Cancelling the returned future removes the command
+     * from the queue or kills the running process.
+     * 
+     * @param commands
+     * @return An exit code.
+     */
+    CompletableFuture<Integer> executeAsync(List<String> commands) {
+        CompletableFuture<Integer> future = new CompletableFuture();
+        CompletableFuture<OfficeInstance> waiter = borrow();
+
+        // leave the queue when the caller cancels or times out
+        future.whenComplete((code, error) -> waiter.cancel(false));
+
+        waiter.thenAccept(instance -> {
+            CompletableFuture<Integer> execution = instance.executeAsync(commands);
+
+            // propagate the cancellation to the child process
+            future.whenComplete((code, error) -> execution.cancel(false));
+
+            execution.whenComplete((code, error) -> {
+                release(instance);
+
+                if (error == null) {
+                    future.complete(code);
+                } else {
+                    future.completeExceptionally(error);
+                }
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Borrow the idle instance.
+     * 
+     * @return
+     */
+    private synchronized CompletableFuture<OfficeInstance> borrow() {
+        // The most recently used instance is reused first because it is most likely to be warm.
+        OfficeInstance instance = idle.pollFirst();
+
+        if (instance == null && instances.size() < size) {
+            instance = new OfficeInstance(soffice);
+            instances.add(instance);
+        }
+
+        if (instance != null) {
+            return CompletableFuture.completedFuture(instance);
+        }
+
+        CompletableFuture<OfficeInstance> waiter = new CompletableFuture();
+        waiters.addLast(waiter);
+        return waiter;
+    }
+
+    /**
+     * Return the borrowed instance. It is passed to the oldest waiter directly if exists.
+     * 
+     * @param instance
+     */
+    private void release(OfficeInstance instance) {
+        CompletableFuture<OfficeInstance> waiter;
+
+        synchronized (this) {
+            do {
+                waiter = waiters.pollFirst();
+            } while (waiter != null && waiter.isDone());
+
+            if (waiter == null) {
+                idle.addFirst(instance);
+                return;
+            }
+        }
+
+        // The waiter may be cancelled concurrently.
+        if (!waiter.complete(instance)) {
+            release(instance);
+        }
+    }
+
+    /**
+     * Stop all instances.
+     */
+    synchronized void shutdown() {
+        for (OfficeInstance instance : instances) {
+            instance.shutdown();
+        }
+    }
+}
\ No newline at end of file
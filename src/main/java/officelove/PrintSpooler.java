@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import psychopath.File;
+
+/**
+ * The print queue per printer.
+ * <p>
+ * The caller never waits for printing. The documents which are queued while the previous job is
+ * running are coalesced into one print job, so the office process is launched once for many
+ * documents. The failed job is retried a few times before its documents are reported as failed.
+ * </p>
+ * <p>
+ * The office reports only one exit code for the coalesced job, so the documents of the failed job
+ * are retried one by one. The documents which had been printed before the failure in the same job
+ * may be printed again by the retry.
+ * </p>
+ */
+public class PrintSpooler {
+
+    /** The key of default printer. */
+    private static final String DEFAULT = "";
+
+    /** The maximum number of documents in one print job. */
+    private final int batchSize;
+
+    /** The maximum number of retries for the failed job. */
+    private final int retry;
+
+    /** The queues by printer. */
+    private final Map<String, Queue> queues = new ConcurrentHashMap();
+
+    /** The number of printed documents. */
+    private final AtomicLong printed = new AtomicLong();
+
+    /** The number of failed documents. */
+    private final AtomicLong failed = new AtomicLong();
+
+    /** The number of retried jobs. */
+    private final AtomicLong retried = new AtomicLong();
+
+    /**
+     * Build spooler with the default settings.
+     */
+    public PrintSpooler() {
+        this(20, 2);
+    }
+
+    /**
+     * Build spooler.
+     * 
+     * @param batchSize The maximum number of documents in one print job.
+     * @param retry The maximum number of retries for the failed job.
+     */
+    public PrintSpooler(int batchSize, int retry) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive. [" + batchSize + "]");
+        }
+
+        if (retry < 0) {
+            throw new IllegalArgumentException("Retry count must not be negative. [" + retry + "]");
+        }
+
+        this.batchSize = batchSize;
+        this.retry = retry;
+    }
+
+    /**
+     * Queue the document to print.
+     * 
+     * @param input The document to print.
+     * @param printer The printer name or null for the default printer.
+     * @return The printed document.
+     */
+    public CompletableFuture<File> print(File input, String printer) {
+        Job job = new Job(input, new CompletableFuture());
+        queues.computeIfAbsent(printer == null ? DEFAULT : printer, Queue::new).add(job);
+        return job.future;
+    }
+
+    /**
+     * Get the number of documents which are queued or printing on the specified printer.
+     * 
+     * @param printer The printer name or null for the default printer.
+     * @return
+     */
+    public int depth(String printer) {
+        Queue queue = queues.get(printer == null ? DEFAULT : printer);
+        return queue == null ? 0 : queue.depth();
+    }
+
+    /**
+     * Get the number of documents which are queued or printing on all printers.
+     * 
+     * @return
+     */
+    public int depth() {
+        int depth = 0;
+        for (Queue queue : queues.values()) {
+            depth += queue.depth();
+        }
+        return depth;
+    }
+
+    /**
+     * Get the number of printed documents.
+     * 
+     * @return
+     */
+    public long printed() {
+        return printed.get();
+    }
+
+    /**
+     * Get the number of documents which are failed to print after all retries.
+     * 
+     * @return
+     */
+    public long failed() {
+        return failed.get();
+    }
+
+    /**
+     * Get the number of retried jobs.
+     * 
+     * @return
+     */
+    public long retried() {
+        return retried.get();
+    }
+
+    /**
+     * The queue of the specific printer. Only one job is running on each printer at the same time.
+     */
+    private class Queue {
+
+        /** The printer name. */
+        private final String printer;
+
+        /** The waiting documents. */
+        private final Deque<Job> pending = new ArrayDeque();
+
+        /** The number of printing documents. */
+        private int running;
+
+        /**
+         * @param printer
+         */
+        private Queue(String printer) {
+            this.printer = printer;
+        }
+
+        /**
+         * Queue the job and start printing if this printer is idle.
+         * 
+         * @param job
+         */
+        private synchronized void add(Job job) {
+            pending.addLast(job);
+
+            if (running == 0) {
+                next();
+            }
+        }
+
+        /**
+         * Get the number of queued or printing documents.
+         * 
+         * @return
+         */
+        private synchronized int depth() {
+            return pending.size() + running;
+        }
+
+        /**
+         * Start the next job which contains all waiting documents up to the batch size.
+         */
+        private synchronized void next() {
+            List<Job> batch = new ArrayList();
+            while (batch.size() < batchSize && !pending.isEmpty()) {
+                Job job = pending.pollFirst();
+
+                // skip the cancelled document
+                if (!job.future.isDone()) {
+                    batch.add(job);
+                }
+            }
+
+            running = batch.size();
+            if (!batch.isEmpty()) {
+                execute(batch, 0, this::next);
+            }
+        }
+
+        /**
+         * Mark the documents as finished.
+         * 
+         * @param count
+         */
+        private synchronized void settle(int count) {
+            running -= count;
+        }
+
+        /**
+         * Execute the print job.
+         * 
+         * @param batch
+         * @param attempt
+         * @param then The action after all documents in the job are finished.
+         */
+        private void execute(List<Job> batch, int attempt, Runnable then) {
+            CompletableFuture<List<File>> execution;
+
+            try {
+                execution = LibreOffice.printAsync(batch.stream().map(Job::input).toList(), printer.isEmpty() ? null : printer);
+            } catch (Throwable e) {
+                execution = CompletableFuture.failedFuture(e);
+            }
+
+            execution.whenComplete((files, error) -> {
+                if (error == null) {
+                    printed.addAndGet(batch.size());
+                    settle(batch.size());
+                    then.run();
+
+                    for (Job job : batch) {
+                        job.future.complete(job.input);
+                    }
+                } else if (attempt < retry) {
+                    retried.incrementAndGet();
+
+                    // back off linearly to let the printer recover
+                    Executor delayed = CompletableFuture.delayedExecutor(attempt + 1, TimeUnit.SECONDS);
+                    if (batch.size() == 1) {
+                        delayed.execute(() -> execute(batch, attempt + 1, then));
+                    } else {
+                        // the succeeded documents in the coalesced job are unknown, so retry one by one
+                        delayed.execute(() -> each(batch, 0, attempt + 1, then));
+                    }
+                } else {
+                    failed.addAndGet(batch.size());
+                    settle(batch.size());
+                    then.run();
+
+                    for (Job job : batch) {
+                        job.future.completeExceptionally(error);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Execute the print job for each document in order.
+         * 
+         * @param jobs
+         * @param index
+         * @param attempt
+         * @param then The action after all documents are finished.
+         */
+        private void each(List<Job> jobs, int index, int attempt, Runnable then) {
+            if (index == jobs.size()) {
+                then.run();
+            } else {
+                execute(List.of(jobs.get(index)), attempt, () -> each(jobs, index + 1, attempt, then));
+            }
+        }
+    }
+
+    /**
+     * The queued document.
+     */
+    private record Job(File input, CompletableFuture<File> future) {
+    }
+}
\ No newline at end of file
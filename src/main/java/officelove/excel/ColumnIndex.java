@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.excel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+
+/**
+ * The compiled header of sheet which maps the normalized column name to its index.
+ * <p>
+ * It is built once per sheet and shared by all rows. Resolve the {@link Column} before the loop and
+ * read each row by it, then the hot loop costs only an array access instead of hashing and
+ * normalizing the column name for every cell.
+ * </p>
+ */
+public class ColumnIndex {
+
+    /** The column indexes by normalized name. */
+    private final Map<String, Integer> indexes = new HashMap();
+
+    /** The resolved columns by the requested name. */
+    private final Map<String, Column> columns = new ConcurrentHashMap();
+
+    /** The compiled mappers by type. */
+    private final Map<Class, RecordMapper> mappers = new ConcurrentHashMap();
+
+    /** The header names by index. */
+    private final String[] names;
+
+    /**
+     * @param headers The header row values, the non-text value is ignored.
+     */
+    ColumnIndex(Object[] headers) {
+        this.names = new String[headers.length];
+
+        for (int i = 0; i < headers.length; i++) {
+            if (headers[i] instanceof String header) {
+                names[i] = header;
+                indexes.putIfAbsent(Excel.normalize(header), i);
+            }
+        }
+    }
+
+    /**
+     * Build the index from the header row.
+     * 
+     * @param header The header row or null.
+     * @return
+     */
+    static ColumnIndex of(XSSFRow header) {
+        if (header == null || header.getLastCellNum() < 0) {
+            return new ColumnIndex(new Object[0]);
+        }
+
+        Object[] values = new Object[header.getLastCellNum()];
+        for (Cell cell : header) {
+            if (cell.getCellType() == CellType.STRING) {
+                values[cell.getColumnIndex()] = cell.getStringCellValue();
+            }
+        }
+        return new ColumnIndex(values);
+    }
+
+    /**
+     * List up all header names by index. The column which has no name is null.
+     * 
+     * @return
+     */
+    public List<String> names() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * Check whether the named column exists or not.
+     * 
+     * @param name A column name.
+     * @return
+     */
+    public boolean contains(String name) {
+        return indexOf(name) != -1;
+    }
+
+    /**
+     * Compute the index of the named column.
+     * 
+     * @param name A column name.
+     * @return A zero-based column index or -1.
+     */
+    public int indexOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+
+        Column column = columns.get(name);
+        if (column != null) {
+            return column.index;
+        }
+        return indexes.getOrDefault(Excel.normalize(name), -1);
+    }
+
+    /**
+     * Resolve the named column.
+     * 
+     * @param name A column name.
+     * @return The resolved column.
+     * @throws IllegalArgumentException If the named column doesn't exist.
+     */
+    public Column column(String name) {
+        Column column = name == null ? null : columns.get(name);
+
+        if (column == null) {
+            int index = indexOf(name);
+            if (index == -1) {
+                throw new IllegalArgumentException("Header name is unknown, please specify the valid name. [" + name + "]");
+            }
+            column = columns.computeIfAbsent(name, key -> new Column(names[index], index));
+        }
+        return column;
+    }
+
+    /**
+     * Get the compiled mapper for the specified type.
+     * 
+     * @param type The record or model type.
+     * @return
+     */
+    <R> RecordMapper<R> mapper(Class<R> type) {
+        return mappers.computeIfAbsent(type, key -> new RecordMapper(key, this));
+    }
+
+    /**
+     * The resolved column.
+     * 
+     * @param name The header name.
+     * @param index A zero-based column index.
+     */
+    public record Column(String name, int index) {
+    }
+}
\ No newline at end of file
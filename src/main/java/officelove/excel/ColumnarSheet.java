@@ -0,0 +1,500 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.excel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoublePredicate;
+import java.util.function.Predicate;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+
+import kiss.I;
+import officelove.excel.ColumnIndex.Column;
+import psychopath.File;
+
+/**
+ * The read-only snapshot of sheet which stores each column in primitive arrays.
+ * <p>
+ * The numeric cell is stored in {@code double[]}, the text cell is dictionary-encoded into
+ * {@code int[]} and the cell kind is recorded in bitsets, so no cell object nor boxed number is
+ * created. Filtering and aggregation scan the contiguous arrays and the repeated text costs only
+ * one dictionary entry. The first row is used as header and is not included in the data rows.
+ * </p>
+ */
+public class ColumnarSheet {
+
+    /** The sheet header. */
+    private final ColumnIndex columns;
+
+    /** The column data by index. */
+    private final Vector[] vectors;
+
+    /** The distinct texts by code. */
+    private final String[] dictionary;
+
+    /** The codes by text. */
+    private final Map<String, Integer> codes;
+
+    /** The number of data rows. */
+    private final int size;
+
+    /**
+     * @param columns
+     * @param vectors
+     * @param dictionary
+     * @param codes
+     * @param size
+     */
+    private ColumnarSheet(ColumnIndex columns, Vector[] vectors, String[] dictionary, Map<String, Integer> codes, int size) {
+        this.columns = columns;
+        this.vectors = vectors;
+        this.dictionary = dictionary;
+        this.codes = codes;
+        this.size = size;
+    }
+
+    /**
+     * Load the sheet without building the whole workbook on memory.
+     * 
+     * @param file
+     * @param sheetName
+     * @return
+     */
+    public static ColumnarSheet load(File file, String sheetName) {
+        if (file == null || file.isAbsent()) {
+            throw new IllegalArgumentException("Excel file is unknown, please specify the valid file.");
+        }
+
+        if (sheetName == null || sheetName.isBlank()) {
+            throw new IllegalArgumentException("Sheet name is unknown, please specify the valid name.");
+        }
+        return load(new StreamingSheet(file, sheetName));
+    }
+
+    /**
+     * Load the streaming sheet.
+     * 
+     * @param sheet
+     * @return
+     */
+    static ColumnarSheet load(StreamingSheet sheet) {
+        try {
+            Builder builder = new Builder();
+            sheet.parse((row, values) -> {
+                builder.add(row, values);
+                return false;
+            });
+            return builder.build();
+        } catch (Throwable e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Load the sheet on memory.
+     * 
+     * @param sheet
+     * @return
+     */
+    static ColumnarSheet load(XSSFSheet sheet) {
+        Builder builder = new Builder();
+
+        for (Row row : sheet) {
+            Object[] values = new Object[Math.max(0, row.getLastCellNum())];
+
+            for (Cell cell : row) {
+                CellType type = cell.getCellType() == CellType.FORMULA ? cell.getCachedFormulaResultType() : cell.getCellType();
+
+                if (type == CellType.NUMERIC) {
+                    values[cell.getColumnIndex()] = cell.getNumericCellValue();
+                } else if (type == CellType.STRING) {
+                    values[cell.getColumnIndex()] = cell.getStringCellValue();
+                }
+            }
+            builder.add(row.getRowNum(), values);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the sheet header.
+     * 
+     * @return
+     */
+    public ColumnIndex columns() {
+        return columns;
+    }
+
+    /**
+     * Resolve the named column.
+     * 
+     * @param name A column name.
+     * @return
+     */
+    public Column column(String name) {
+        return columns.column(name);
+    }
+
+    /**
+     * Get the number of data rows.
+     * 
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether the cell has neither number nor text.
+     * 
+     * @param column
+     * @param row A zero-based data row index.
+     * @return
+     */
+    public boolean isBlank(Column column, int row) {
+        Vector vector = vector(column);
+        return vector == null || (!vector.numeric.get(row) && !vector.text.get(row));
+    }
+
+    /**
+     * Check whether the cell is numeric.
+     * 
+     * @param column
+     * @param row A zero-based data row index.
+     * @return
+     */
+    public boolean isNumeric(Column column, int row) {
+        Vector vector = vector(column);
+        return vector != null && vector.numeric.get(row);
+    }
+
+    /**
+     * Read the numeric value.
+     * 
+     * @param column
+     * @param row A zero-based data row index.
+     * @return The value or NaN if the cell is not numeric.
+     */
+    public double number(Column column, int row) {
+        Vector vector = vector(column);
+        return vector != null && vector.numeric.get(row) ? vector.numbers[row] : Double.NaN;
+    }
+
+    /**
+     * Read the text value.
+     * 
+     * @param column
+     * @param row A zero-based data row index.
+     * @return The value or null if the cell is not text.
+     */
+    public String text(Column column, int row) {
+        int code = code(column, row);
+        return code == -1 ? null : dictionary[code];
+    }
+
+    /**
+     * Read the dictionary code of text value. The same text has the same code in the whole sheet.
+     * 
+     * @param column
+     * @param row A zero-based data row index.
+     * @return The code or -1 if the cell is not text.
+     */
+    public int code(Column column, int row) {
+        Vector vector = vector(column);
+        return vector != null && vector.text.get(row) ? vector.codes[row] : -1;
+    }
+
+    /**
+     * Compute the dictionary code of the specified text.
+     * 
+     * @param text
+     * @return The code or -1 if no cell has the text.
+     */
+    public int code(String text) {
+        return codes.getOrDefault(text, -1);
+    }
+
+    /**
+     * Select the rows whose numeric value matches the condition.
+     * 
+     * @param column
+     * @param condition
+     * @return The selected row indexes.
+     */
+    public BitSet select(Column column, DoublePredicate condition) {
+        BitSet selected = new BitSet(size);
+        Vector vector = vector(column);
+
+        if (vector != null) {
+            for (int row = vector.numeric.nextSetBit(0); row >= 0; row = vector.numeric.nextSetBit(row + 1)) {
+                if (condition.test(vector.numbers[row])) {
+                    selected.set(row);
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Select the rows whose text value matches the condition. The condition is tested only once for
+     * each distinct text.
+     * 
+     * @param column
+     * @param condition
+     * @return The selected row indexes.
+     */
+    public BitSet select(Column column, Predicate<String> condition) {
+        BitSet selected = new BitSet(size);
+        Vector vector = vector(column);
+
+        if (vector != null) {
+            byte[] matches = new byte[dictionary.length];
+
+            for (int row = vector.text.nextSetBit(0); row >= 0; row = vector.text.nextSetBit(row + 1)) {
+                int code = vector.codes[row];
+
+                if (matches[code] == 0) {
+                    matches[code] = condition.test(dictionary[code]) ? (byte) 1 : (byte) -1;
+                }
+
+                if (matches[code] == 1) {
+                    selected.set(row);
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Sum up all numeric values in the column.
+     * 
+     * @param column
+     * @return
+     */
+    public double sum(Column column) {
+        Vector vector = vector(column);
+        return vector == null ? 0 : sum(vector, vector.numeric);
+    }
+
+    /**
+     * Sum up the numeric values of the selected rows in the column.
+     * 
+     * @param column
+     * @param rows The selected row indexes.
+     * @return
+     */
+    public double sum(Column column, BitSet rows) {
+        Vector vector = vector(column);
+        if (vector == null) {
+            return 0;
+        }
+
+        BitSet target = (BitSet) rows.clone();
+        target.and(vector.numeric);
+        return sum(vector, target);
+    }
+
+    /**
+     * Sum up the numeric values of the specified rows.
+     * 
+     * @param vector
+     * @param rows
+     * @return
+     */
+    private static double sum(Vector vector, BitSet rows) {
+        double sum = 0;
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            sum += vector.numbers[row];
+        }
+        return sum;
+    }
+
+    /**
+     * Count the non-blank cells in the column.
+     * 
+     * @param column
+     * @return
+     */
+    public int count(Column column) {
+        Vector vector = vector(column);
+        return vector == null ? 0 : vector.numeric.cardinality() + vector.text.cardinality();
+    }
+
+    /**
+     * Get the column data.
+     * 
+     * @param column
+     * @return The data or null if the column has no value.
+     */
+    private Vector vector(Column column) {
+        return column.index() < vectors.length ? vectors[column.index()] : null;
+    }
+
+    /**
+     * The data of one column. The array is allocated only when the column has such value.
+     */
+    private static class Vector {
+
+        /** The numeric values by row. */
+        private double[] numbers;
+
+        /** The text codes by row. */
+        private int[] codes;
+
+        /** The rows which have numeric value. */
+        private final BitSet numeric = new BitSet();
+
+        /** The rows which have text value. */
+        private final BitSet text = new BitSet();
+
+        /**
+         * Store the numeric value.
+         * 
+         * @param row
+         * @param value
+         */
+        private void number(int row, double value) {
+            if (numbers == null) {
+                numbers = new double[Math.max(16, row + 1)];
+            } else if (numbers.length <= row) {
+                numbers = Arrays.copyOf(numbers, Math.max(row + 1, numbers.length * 2));
+            }
+            numbers[row] = value;
+            numeric.set(row);
+        }
+
+        /**
+         * Store the text code.
+         * 
+         * @param row
+         * @param code
+         */
+        private void text(int row, int code) {
+            if (codes == null) {
+                codes = new int[Math.max(16, row + 1)];
+            } else if (codes.length <= row) {
+                codes = Arrays.copyOf(codes, Math.max(row + 1, codes.length * 2));
+            }
+            codes[row] = code;
+            text.set(row);
+        }
+
+        /**
+         * Release the unused capacity.
+         * 
+         * @param size
+         */
+        private void trim(int size) {
+            if (numbers != null && size < numbers.length) {
+                numbers = Arrays.copyOf(numbers, size);
+            }
+
+            if (codes != null && size < codes.length) {
+                codes = Arrays.copyOf(codes, size);
+            }
+        }
+    }
+
+    /**
+     * The builder which accepts the parsed rows.
+     */
+    private static class Builder {
+
+        /** The column data by index. */
+        private final List<Vector> vectors = new ArrayList();
+
+        /** The text codes. */
+        private final Map<String, Integer> codes = new HashMap();
+
+        /** The distinct texts by code. */
+        private final List<String> dictionary = new ArrayList();
+
+        /** The sheet header. */
+        private ColumnIndex columns;
+
+        /** The number of data rows. */
+        private int size;
+
+        /**
+         * Accept the parsed row.
+         * 
+         * @param row A zero-based row index in sheet.
+         * @param values
+         */
+        private void add(int row, Object[] values) {
+            if (columns == null) {
+                columns = new ColumnIndex(row == 0 ? values : new Object[0]);
+
+                if (row == 0) {
+                    return;
+                }
+            }
+
+            // the header is excluded from data rows
+            int index = row - 1;
+            size = Math.max(size, index + 1);
+
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+
+                if (value instanceof Double number) {
+                    vector(i).number(index, number);
+                } else if (value instanceof String text) {
+                    vector(i).text(index, codes.computeIfAbsent(text, key -> {
+                        dictionary.add(key);
+                        return dictionary.size() - 1;
+                    }));
+                }
+            }
+        }
+
+        /**
+         * Get the column data.
+         * 
+         * @param index
+         * @return
+         */
+        private Vector vector(int index) {
+            while (vectors.size() <= index) {
+                vectors.add(null);
+            }
+
+            Vector vector = vectors.get(index);
+            if (vector == null) {
+                vector = new Vector();
+                vectors.set(index, vector);
+            }
+            return vector;
+        }
+
+        /**
+         * Build the snapshot.
+         * 
+         * @return
+         */
+        private ColumnarSheet build() {
+            for (Vector vector : vectors) {
+                if (vector != null) {
+                    vector.trim(size);
+                }
+            }
+            return new ColumnarSheet(columns == null ? new ColumnIndex(new Object[0]) : columns, vectors
+                    .toArray(Vector[]::new), dictionary.toArray(String[]::new), codes, size);
+        }
+    }
+}
\ No newline at end of file
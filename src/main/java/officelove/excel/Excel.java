@@ -11,13 +11,16 @@ package officelove.excel;
 
 import java.awt.Desktop;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.text.Normalizer;
 import java.text.Normalizer.Form;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -25,6 +28,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -33,11 +40,14 @@ import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.CreationHelper;
 import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.util.CellAddress;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFCell;
 import org.apache.poi.xssf.usermodel.XSSFComment;
 import org.apache.poi.xssf.usermodel.XSSFRow;
@@ -53,6 +63,7 @@ import kiss.Signal;
 import kiss.WiseBiConsumer;
 import kiss.WiseSupplier;
 import officelove.LibreOffice;
+import officelove.excel.ColumnIndex.Column;
 import officelove.expression.Parser;
 import psychopath.File;
 import psychopath.Locator;
@@ -78,6 +89,21 @@ public class Excel {
     /** The date cell style. */
     private final CellStyle dateStyle;
 
+    /**
+     * The rows by model. The model is weakly referenced, so the row is released with its model. The
+     * registry belongs to this workbook and never mixes the rows of other workbooks.
+     */
+    private final Map<Object, Row> rows = Collections.synchronizedMap(new WeakHashMap());
+
+    /** The name-index header map by sheet. */
+    private final Map<XSSFSheet, Map<String, Integer>> headers = new ConcurrentHashMap();
+
+    /** The number of header columns of the main sheet, or -1 if it is not computed yet. */
+    private int headerSize = -1;
+
+    /** The index of the next candidate row which may be blank in the main sheet. */
+    private int nextBlankRow = 1;
+
     /**
      * Create empty {@link Excel}.
      */
@@ -255,7 +281,7 @@ public class Excel {
     public <M> Excel write(Signal<M> models, BiConsumer<M, Row> operation) {
         update(models, items -> {
             items.to(model -> {
-                operation.accept(model, Row.rows.computeIfAbsent(model, key -> {
+                operation.accept(model, rows.computeIfAbsent(model, key -> {
                     return new Row(findFirstBlankRow());
                 }));
             });
@@ -282,7 +308,7 @@ public class Excel {
     public Excel update(List models) {
         return update(models, items -> {
             for (Object item : items) {
-                Row row = Row.rows.get(item);
+                Row row = rows.get(item);
 
                 if (row != null) {
                     Model model = Model.of(item);
@@ -324,10 +350,33 @@ public class Excel {
         return this;
     }
 
-    private XSSFRow findFirstBlankRow() {
-        XSSFRow head = sheet.getRow(0);
+    private synchronized XSSFRow findFirstBlankRow() {
+        if (headerSize == -1) {
+            headerSize = computeHeaderSize();
+        }
 
-        // compute head size
+        // The rows before the cursor are already assigned, so each row is checked only once.
+        int last = sheet.getLastRowNum();
+        while (nextBlankRow <= last) {
+            int index = nextBlankRow++;
+
+            if (isBlank(sheet.getRow(index))) {
+                return prepareRow(index);
+            }
+        }
+
+        // all rows are filled, append new row
+        nextBlankRow = Math.max(nextBlankRow, last + 1);
+        return prepareRow(nextBlankRow++);
+    }
+
+    /**
+     * Compute the number of header columns.
+     * 
+     * @return
+     */
+    private int computeHeaderSize() {
+        XSSFRow head = sheet.getRow(0);
         int headerSize = 0;
 
         if (head != null) {
@@ -340,41 +389,25 @@ public class Excel {
                 }
             }
         }
+        return headerSize;
+    }
 
-        row: for (int i = 1; i < sheet.getLastRowNum(); i++) {
-            XSSFRow row = sheet.getRow(i);
-
-            if (row == null) {
-                row = sheet.createRow(i);
-                row.setHeightInPoints(30f);
-            }
-
-            for (int j = 0; j < headerSize; j++) {
-                XSSFCell cell = row.getCell(j);
-
-                if (cell == null) {
-                    XSSFCell created = row.createCell(j);
-                    created.setCellStyle(baseStyle);
-                } else if (cell.getCellType() != CellType.BLANK) {
-                    continue row;
-                }
-            }
-            return row;
-        }
-
-        XSSFRow row = sheet.getRow(sheet.getLastRowNum());
+    /**
+     * Get or create the row which has the header-width cells.
+     * 
+     * @param index
+     * @return
+     */
+    private XSSFRow prepareRow(int index) {
+        XSSFRow row = sheet.getRow(index);
 
         if (row == null) {
-            int last = sheet.getPhysicalNumberOfRows();
-            System.out.println(last);
-            row = sheet.createRow(last);
+            row = sheet.createRow(index);
             row.setHeightInPoints(30f);
         }
 
         for (int j = 0; j < headerSize; j++) {
-            XSSFCell cell = row.getCell(j);
-
-            if (cell == null) {
+            if (row.getCell(j) == null) {
                 XSSFCell created = row.createCell(j);
                 created.setCellStyle(baseStyle);
             }
@@ -382,6 +415,25 @@ public class Excel {
         return row;
     }
 
+    /**
+     * Check whether all header-width cells are blank.
+     * 
+     * @param row
+     * @return
+     */
+    private boolean isBlank(XSSFRow row) {
+        if (row != null) {
+            for (int j = 0; j < headerSize; j++) {
+                XSSFCell cell = row.getCell(j);
+
+                if (cell != null && cell.getCellType() != CellType.BLANK) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     public Excel calculate(Object model) {
         Map<CellAddress, XSSFComment> cellComments = sheet.getCellComments();
 
@@ -477,10 +529,6 @@ public class Excel {
      */
     public class Row {
 
-        private static final Map<Object, Row> rows = new HashMap();
-
-        private static final Map<XSSFSheet, Map<String, Integer>> nameToIndex = new HashMap();
-
         /** The actual row. */
         private final XSSFRow row;
 
@@ -561,7 +609,7 @@ public class Excel {
          * @return
          */
         private Map<String, Integer> header() {
-            return nameToIndex.computeIfAbsent(row.getSheet(), key -> {
+            return headers.computeIfAbsent(row.getSheet(), key -> {
                 HashMap<String, Integer> map = new HashMap();
                 XSSFRow header = row.getSheet().getRow(0);
 
@@ -575,7 +623,7 @@ public class Excel {
                         map.put(normalized, columnIndex);
                     }
                 }
-                return map;
+                return Collections.unmodifiableMap(map);
             });
         }
 
@@ -649,18 +697,11 @@ public class Excel {
          * @return
          */
         private static <M> M blank(XSSFCell cell, Class<M> modelClass) {
-            int rowIndex = cell.getRowIndex();
-            int columnIndex = cell.getColumnIndex();
-
             XSSFSheet sheet = cell.getSheet();
-            int size = sheet.getNumMergedRegions();
-
-            for (int i = 0; i < size; i++) {
-                CellRangeAddress range = sheet.getMergedRegion(i);
+            CellRangeAddress range = MergedRegions.find(sheet, cell.getRowIndex(), cell.getColumnIndex());
 
-                if (range.isInRange(rowIndex, columnIndex)) {
-                    return value(sheet.getRow(range.getFirstRow()).getCell(range.getFirstColumn()), modelClass);
-                }
+            if (range != null) {
+                return value(sheet.getRow(range.getFirstRow()).getCell(range.getFirstColumn()), modelClass);
             }
             return initial(modelClass);
         }
@@ -798,23 +839,95 @@ public class Excel {
      * @param writer
      */
     public static <T> void write(File output, List<T> items, WiseBiConsumer<RowWriter, T> writer) {
-        XSSFWorkbook book = new XSSFWorkbook();
-        XSSFSheet sheet = book.createSheet();
+        write(output, items.iterator(), writer);
+    }
 
-        try {
-            int count = 0;
-            for (int i = 0; i < items.size(); i++) {
-                T item = items.get(i);
-                if (item != null) {
-                    writer.accept(new RowWriter(sheet.createRow(count++)), item);
+    /**
+     * Write out the new excel file. Only the recent rows are kept in memory and the others are
+     * flushed to the temporary file, so the memory usage doesn't depend on the number of items.
+     * 
+     * @param <T>
+     * @param output
+     * @param items
+     * @param writer
+     */
+    public static <T> void write(File output, Iterator<T> items, WiseBiConsumer<RowWriter, T> writer) {
+        write(output, writer, items::forEachRemaining);
+    }
+
+    /**
+     * Write out the new excel file. Only the recent rows are kept in memory and the others are
+     * flushed to the temporary file, so the memory usage doesn't depend on the number of items.
+     * The current thread is blocked until the signal is terminated, so the asynchronous signal is
+     * also written completely.
+     * 
+     * @param <T>
+     * @param output
+     * @param items
+     * @param writer
+     */
+    public static <T> void write(File output, Signal<T> items, WiseBiConsumer<RowWriter, T> writer) {
+        write(output, writer, each -> {
+            CountDownLatch terminated = new CountDownLatch(1);
+            AtomicReference<Throwable> error = new AtomicReference();
+
+            Disposable disposable = items.to(item -> {
+                // ignore the remaining items after the failure
+                if (error.get() == null) {
+                    try {
+                        each.accept(item);
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                        terminated.countDown();
+                    }
                 }
+            }, e -> {
+                error.compareAndSet(null, e);
+                terminated.countDown();
+            }, terminated::countDown);
+
+            try {
+                terminated.await();
+            } catch (InterruptedException e) {
+                throw I.quiet(e);
+            } finally {
+                disposable.dispose();
+            }
+
+            if (error.get() != null) {
+                throw I.quiet(error.get());
             }
+        });
+    }
+
+    /**
+     * Write out the new excel file.
+     * 
+     * @param <T>
+     * @param output
+     * @param writer
+     * @param items
+     */
+    private static <T> void write(File output, WiseBiConsumer<RowWriter, T> writer, Consumer<Consumer<T>> items) {
+        SXSSFWorkbook book = new SXSSFWorkbook(SXSSFWorkbook.DEFAULT_WINDOW_SIZE);
+        book.setCompressTempFiles(true);
 
-            book.write(output.newOutputStream());
+        try (OutputStream stream = output.newOutputStream()) {
+            SXSSFSheet sheet = book.createSheet();
+            int[] count = {0};
+
+            items.accept(item -> {
+                if (item != null) {
+                    writer.accept(new RowWriter(sheet.createRow(count[0]++)), item);
+                }
+            });
+
+            book.write(stream);
         } catch (Exception e) {
             throw I.quiet(e);
         } finally {
             try {
+                book.dispose();
                 book.close();
             } catch (IOException e) {
                 throw I.quiet(e);
@@ -827,14 +940,14 @@ public class Excel {
      */
     public static class RowWriter {
 
-        private final XSSFRow row;
+        private final org.apache.poi.ss.usermodel.Row row;
 
         private int count;
 
         /**
          * @param row
          */
-        private RowWriter(XSSFRow row) {
+        private RowWriter(org.apache.poi.ss.usermodel.Row row) {
             this.row = row;
         }
 
@@ -845,7 +958,7 @@ public class Excel {
          * @return
          */
         public RowWriter add(String value) {
-            XSSFCell cell = row.createCell(count++);
+            Cell cell = row.createCell(count++);
             cell.setCellValue(value);
 
             return this;
@@ -865,15 +978,44 @@ public class Excel {
         return I.signal(file).map(x -> new XSSFWorkbook(file.asJavaFile())).flatIterable(x -> x).as(XSSFSheet.class).map(SheetReader::new);
     }
 
+    /**
+     * Read data from sheet without building the whole workbook on memory. Each row is emitted as
+     * soon as it is parsed, so the memory usage doesn't depend on the size of sheet.
+     * 
+     * @param file
+     * @return
+     */
+    public static Signal<SheetReader> stream(File file) {
+        if (file == null || file.isAbsent()) {
+            throw new IllegalArgumentException("Excel file is unknown, please specify the valid file.");
+        }
+        return I.signal(file).flatIterable(StreamingSheet::sheets).map(SheetReader::new);
+    }
+
     public static class SheetReader {
 
         private final XSSFSheet sheet;
 
+        /** The streaming sheet. */
+        private final StreamingSheet streaming;
+
+        /** The cached header. */
+        private ColumnIndex columns;
+
         /**
          * @param x
          */
         private SheetReader(XSSFSheet sheet) {
             this.sheet = sheet;
+            this.streaming = null;
+        }
+
+        /**
+         * @param streaming
+         */
+        private SheetReader(StreamingSheet streaming) {
+            this.sheet = null;
+            this.streaming = streaming;
         }
 
         /**
@@ -882,7 +1024,60 @@ public class Excel {
          * @return
          */
         public String name() {
-            return sheet.getSheetName();
+            return streaming != null ? streaming.name : sheet.getSheetName();
+        }
+
+        /**
+         * Get the header of this sheet. It is built only once and shared by all reads.
+         * 
+         * @return
+         */
+        public synchronized ColumnIndex columns() {
+            if (streaming != null) {
+                return streaming.columns();
+            }
+
+            if (columns == null) {
+                columns = ColumnIndex.of(sheet.getRow(0));
+            }
+            return columns;
+        }
+
+        /**
+         * Load this sheet into the columnar snapshot.
+         * 
+         * @return
+         */
+        public ColumnarSheet columnar() {
+            return streaming != null ? ColumnarSheet.load(streaming) : ColumnarSheet.load(sheet);
+        }
+
+        /**
+         * Read data from row as the typed object. The header name is mapped to the record
+         * component or the {@link kiss.Model} property only once for each type. The row whose
+         * first mapped column is blank is skipped.
+         * 
+         * @param type The record or model type.
+         * @return
+         */
+        public <R> Signal<R> read(Class<R> type) {
+            RecordMapper<R> mapper = columns().mapper(type);
+
+            return read(mapper.key()).map(mapper::map);
+        }
+
+        /**
+         * Read data from row as the typed object. The header name is mapped to the record
+         * component or the {@link kiss.Model} property only once for each type.
+         * 
+         * @param headerName The column to detect the blank row.
+         * @param type The record or model type.
+         * @return
+         */
+        public <R> Signal<R> read(String headerName, Class<R> type) {
+            RecordMapper<R> mapper = columns().mapper(type);
+
+            return read(headerName).map(mapper::map);
         }
 
         /**
@@ -896,19 +1091,15 @@ public class Excel {
                 throw new IllegalArgumentException("Header name is unknown, please specify the valid name.");
             }
 
+            if (streaming != null) {
+                return streaming.read(headerName);
+            }
+
             return new Signal<>((observer, disposer) -> {
                 try {
-                    // create header mapping
-                    Map<String, Integer> mapping = new HashMap();
-                    for (Cell header : sheet.getRow(0)) {
-                        mapping.put(header.getStringCellValue(), header.getColumnIndex());
-                    }
-
                     // specify the target header
-                    int index = mapping.getOrDefault(headerName, -1);
-                    if (index == -1) {
-                        throw new IllegalArgumentException("Header name is unknown, please specify the valid name.");
-                    }
+                    ColumnIndex mapping = columns();
+                    int index = mapping.column(headerName).index();
 
                     // process for each rows
                     for (int i = 1; i < sheet.getLastRowNum(); i++) {
@@ -973,17 +1164,9 @@ public class Excel {
                     throw new IllegalArgumentException("Sheet name is unknown, please specify the valid name.");
                 }
 
-                // create header mapping
-                Map<String, Integer> mapping = new HashMap();
-                for (Cell header : sheet.getRow(0)) {
-                    mapping.put(header.getStringCellValue(), header.getColumnIndex());
-                }
-
                 // specify the target header
-                int index = mapping.getOrDefault(headerName, -1);
-                if (index == -1) {
-                    throw new IllegalArgumentException("Header name is unknown, please specify the valid name.");
-                }
+                ColumnIndex mapping = ColumnIndex.of(sheet.getRow(0));
+                int index = mapping.column(headerName).index();
 
                 // process for each rows
                 for (int i = 1; i < sheet.getLastRowNum(); i++) {
@@ -1029,6 +1212,45 @@ public class Excel {
         });
     }
 
+    /**
+     * Read data for each row without building the whole workbook on memory. Each row is emitted as
+     * soon as it is parsed and disposing the subscription stops reading the sheet.
+     * <p>
+     * The blank cell in merged region is not resolved in this mode because the merged regions are
+     * defined after all rows.
+     * </p>
+     */
+    public static Signal<RowReader> stream(File file, String sheetName, String headerName) {
+        if (file == null || file.isAbsent()) {
+            throw new IllegalArgumentException("Excel file is unknown, please specify the valid file.");
+        }
+
+        if (sheetName == null || sheetName.isBlank()) {
+            throw new IllegalArgumentException("Sheet name is unknown, please specify the valid name.");
+        }
+        return new StreamingSheet(file, sheetName).read(headerName);
+    }
+
+    /**
+     * Read data for each row of all sheets in parallel without building the whole workbook on
+     * memory. The shared strings are loaded only once and the sheets are parsed concurrently. Use
+     * {@link RowReader#sheet()} to know which sheet the row belongs to. The sheet which has no such
+     * header is skipped.
+     * 
+     * @param file
+     * @param headerName
+     * @param parallelism The maximum number of sheets which are parsed at the same time.
+     * @param ordered true to emit all rows in sheet order, false to emit rows as soon as they are
+     *            parsed.
+     * @return
+     */
+    public static Signal<RowReader> stream(File file, String headerName, int parallelism, boolean ordered) {
+        if (file == null || file.isAbsent()) {
+            throw new IllegalArgumentException("Excel file is unknown, please specify the valid file.");
+        }
+        return StreamingSheet.readAll(file, headerName, parallelism, ordered);
+    }
+
     /**
      * 
      */
@@ -1037,15 +1259,60 @@ public class Excel {
         /** The actual row. */
         private final XSSFRow row;
 
+        /** The streamed cell values. */
+        private final Object[] values;
+
         /** The header mapping. */
-        private final Map<String, Integer> mapping;
+        private final ColumnIndex mapping;
+
+        /** The streamed sheet name. */
+        private final String sheet;
+
+        /** The date system of the streamed workbook, true if the dates are based on 1904. */
+        private final boolean date1904;
 
         /**
          * @param row
          */
-        private RowReader(XSSFRow row, Map<String, Integer> mapping) {
+        private RowReader(XSSFRow row, ColumnIndex mapping) {
             this.row = row;
+            this.values = null;
             this.mapping = mapping;
+            this.sheet = null;
+            this.date1904 = false;
+        }
+
+        /**
+         * @param values
+         * @param mapping
+         * @param sheet
+         * @param date1904
+         */
+        RowReader(Object[] values, ColumnIndex mapping, String sheet, boolean date1904) {
+            this.row = null;
+            this.values = values;
+            this.mapping = mapping;
+            this.sheet = sheet;
+            this.date1904 = date1904;
+        }
+
+        /**
+         * Get the name of sheet which this row belongs to.
+         * 
+         * @return
+         */
+        public String sheet() {
+            return row != null ? row.getSheet().getSheetName() : sheet;
+        }
+
+        /**
+         * Get the header of this row's sheet. Resolve the {@link Column} once and reuse it for
+         * all rows.
+         * 
+         * @return
+         */
+        public ColumnIndex columns() {
+            return mapping;
         }
 
         /**
@@ -1088,15 +1355,140 @@ public class Excel {
             return value(headerName, LocalDate.class);
         }
 
+        /**
+         * Read the value as text.
+         * 
+         * @param column
+         * @return
+         */
+        public String text(Column column) {
+            return value(column.index(), String.class);
+        }
+
+        /**
+         * Read the value as integral number.
+         * 
+         * @param column
+         * @return
+         */
+        public int integer(Column column) {
+            return value(column.index(), int.class);
+        }
+
+        /**
+         * Read the value as decimal number.
+         * 
+         * @param column
+         * @return
+         */
+        public BigDecimal decimal(Column column) {
+            return value(column.index(), BigDecimal.class);
+        }
+
+        /**
+         * Read the value as {@link LocalDate}.
+         * 
+         * @param column
+         * @return
+         */
+        public LocalDate date(Column column) {
+            return value(column.index(), LocalDate.class);
+        }
+
         /**
          * Read the value.
          * 
-         * @param cell
+         * @param headerName
          * @param type
          * @return
          */
         private <M> M value(String headerName, Class<M> type) {
-            return value(row.getCell(mapping.get(headerName)), type);
+            return value(mapping.column(headerName).index(), type);
+        }
+
+        /**
+         * Read the value.
+         * 
+         * @param index
+         * @param type
+         * @return
+         */
+        <M> M value(int index, Class<M> type) {
+            if (row == null) {
+                return streamed(index < values.length ? values[index] : null, type);
+            }
+            return value(row.getCell(index), type);
+        }
+
+        /**
+         * Read the raw value without conversion. The blank cell in the merged region has the value
+         * of its first cell.
+         * 
+         * @param index A zero-based column index.
+         * @return {@link String}, {@link Double} or null.
+         */
+        Object raw(int index) {
+            if (row == null) {
+                Object value = index < values.length ? values[index] : null;
+                return value instanceof String || value instanceof Double ? value : null;
+            }
+            return raw(row.getCell(index));
+        }
+
+        /**
+         * Read the raw value without conversion.
+         * 
+         * @param cell
+         * @return {@link String}, {@link Double} or null.
+         */
+        private static Object raw(XSSFCell cell) {
+            if (cell == null) {
+                return null;
+            }
+
+            CellType type = cell.getCellType() == CellType.FORMULA ? cell.getCachedFormulaResultType() : cell.getCellType();
+            switch (type) {
+            case STRING:
+                return cell.getStringCellValue();
+
+            case NUMERIC:
+                return cell.getNumericCellValue();
+
+            case BLANK:
+                XSSFSheet sheet = cell.getSheet();
+                CellRangeAddress range = MergedRegions.find(sheet, cell.getRowIndex(), cell.getColumnIndex());
+                return range == null ? null : raw(sheet.getRow(range.getFirstRow()).getCell(range.getFirstColumn()));
+
+            default:
+                return null;
+            }
+        }
+
+        /**
+         * Check whether the dates in the workbook are based on 1904.
+         * 
+         * @return
+         */
+        boolean date1904() {
+            return row == null ? date1904 : row.getSheet().getWorkbook().isDate1904();
+        }
+
+        /**
+         * Read the streamed value.
+         * 
+         * @param value
+         * @param type
+         * @return
+         */
+        private <M> M streamed(Object value, Class<M> type) {
+            if (value instanceof String text) {
+                return string(null, text, type);
+            }
+
+            if (value instanceof Double numeric) {
+                return numeric(null, numeric, type, date1904);
+            }
+            return initial(type);
         }
 
         /**
@@ -1119,7 +1511,7 @@ public class Excel {
                 return string(cell, cell.getStringCellValue(), type);
 
             case NUMERIC:
-                return numeric(cell, cell.getNumericCellValue(), type);
+                return numeric(cell, cell.getNumericCellValue(), type, false);
 
             case FORMULA:
                 switch (cell.getCachedFormulaResultType()) {
@@ -1130,7 +1522,7 @@ public class Excel {
                     return string(cell, cell.getStringCellValue(), type);
 
                 case NUMERIC:
-                    return numeric(cell, cell.getNumericCellValue(), type);
+                    return numeric(cell, cell.getNumericCellValue(), type, false);
 
                 default:
                     break;
@@ -1151,18 +1543,11 @@ public class Excel {
          * @return
          */
         private static <M> M blank(XSSFCell cell, Class<M> modelClass) {
-            int rowIndex = cell.getRowIndex();
-            int columnIndex = cell.getColumnIndex();
-
             XSSFSheet sheet = cell.getSheet();
-            int size = sheet.getNumMergedRegions();
-
-            for (int i = 0; i < size; i++) {
-                CellRangeAddress range = sheet.getMergedRegion(i);
+            CellRangeAddress range = MergedRegions.find(sheet, cell.getRowIndex(), cell.getColumnIndex());
 
-                if (range.isInRange(rowIndex, columnIndex)) {
-                    return value(sheet.getRow(range.getFirstRow()).getCell(range.getFirstColumn()), modelClass);
-                }
+            if (range != null) {
+                return value(sheet.getRow(range.getFirstRow()).getCell(range.getFirstColumn()), modelClass);
             }
             return initial(modelClass);
         }
@@ -1185,9 +1570,11 @@ public class Excel {
          * @param cell
          * @param value
          * @param modelClass
+         * @param date1904 The date system of the streamed workbook, it is ignored if the cell
+         *            exists.
          * @return
          */
-        private static <M> M numeric(XSSFCell cell, double numeric, Class<M> modelClass) {
+        private static <M> M numeric(XSSFCell cell, double numeric, Class<M> modelClass, boolean date1904) {
             if (modelClass == int.class || modelClass == Integer.class) {
                 return (M) Integer.valueOf((int) numeric);
             }
@@ -1205,11 +1592,11 @@ public class Excel {
             }
 
             if (modelClass == LocalDate.class) {
-                return (M) cell.getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+                return (M) date(cell, numeric, date1904).toLocalDate();
             }
 
             if (modelClass == LocalTime.class) {
-                return (M) cell.getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalTime();
+                return (M) date(cell, numeric, date1904).toLocalTime();
             }
 
             String numericText = String.valueOf(numeric);
@@ -1220,13 +1607,28 @@ public class Excel {
             return I.transform(numericText, modelClass);
         }
 
+        /**
+         * Convert the numeric value to date.
+         * 
+         * @param cell A cell or null in streaming mode.
+         * @param numeric
+         * @param date1904 The date system of the streamed workbook.
+         * @return
+         */
+        private static LocalDateTime date(XSSFCell cell, double numeric, boolean date1904) {
+            if (cell == null) {
+                return DateUtil.getLocalDateTime(numeric, date1904);
+            }
+            return cell.getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+        }
+
         /**
          * Return the initial value for the specified type.
          * 
          * @param type
          * @return
          */
-        private static <T> T initial(Class<T> type) {
+        static <T> T initial(Class<T> type) {
             if (type == int.class || type == Integer.class) {
                 return (T) Integer.valueOf(0);
             }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.excel;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTMergeCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTMergeCells;
+
+/**
+ * The index of merged regions in sheet.
+ * <p>
+ * The regions are sorted by the first row and each entry records the furthest last row among the
+ * preceding regions, so the candidates are found by binary search and the scan stops as soon as no
+ * preceding region can reach the row. The memory is proportional to the number of regions
+ * regardless of their height.
+ * </p>
+ * <p>
+ * The index is built once per sheet and rebuilt when the merged regions are added, removed or
+ * replaced. Any change through the sheet either changes the number of regions or appends a new
+ * merge cell element, so the index remembers the element container, the number and the last
+ * element.
+ * </p>
+ */
+class MergedRegions {
+
+    /** The built indexes by sheet. */
+    private static final Map<XSSFSheet, MergedRegions> indexes = Collections.synchronizedMap(new WeakHashMap());
+
+    /** The indexed merge cell container. */
+    private final CTMergeCells cells;
+
+    /** The number of indexed regions. */
+    private final int count;
+
+    /** The last indexed merge cell element. */
+    private final CTMergeCell last;
+
+    /** The regions sorted by the first row. */
+    private final CellRangeAddress[] regions;
+
+    /** The furthest last row among the regions up to each index. */
+    private final int[] reach;
+
+    /**
+     * @param cells
+     * @param regions
+     */
+    private MergedRegions(CTMergeCells cells, List<CellRangeAddress> regions) {
+        this.cells = cells;
+        this.count = cells.sizeOfMergeCellArray();
+        this.last = cells.getMergeCellArray(count - 1);
+        this.regions = regions.toArray(CellRangeAddress[]::new);
+        this.reach = new int[this.regions.length];
+
+        Arrays.sort(this.regions, Comparator.comparingInt(CellRangeAddress::getFirstRow));
+        for (int i = 0; i < reach.length; i++) {
+            reach[i] = Math.max(this.regions[i].getLastRow(), i == 0 ? -1 : reach[i - 1]);
+        }
+    }
+
+    /**
+     * Check whether the indexed regions are still same as the sheet.
+     * 
+     * @param cells The current merge cell container.
+     * @return
+     */
+    private boolean isValid(CTMergeCells cells) {
+        return this.cells == cells && count == cells.sizeOfMergeCellArray() && last == cells.getMergeCellArray(count - 1);
+    }
+
+    /**
+     * Find the merged region which contains the specified cell.
+     * 
+     * @param sheet
+     * @param row A zero-based row index.
+     * @param column A zero-based column index.
+     * @return The region or null.
+     */
+    static CellRangeAddress find(XSSFSheet sheet, int row, int column) {
+        if (sheet.getNumMergedRegions() == 0) {
+            return null;
+        }
+
+        CTMergeCells cells = sheet.getCTWorksheet().getMergeCells();
+        MergedRegions index = indexes.get(sheet);
+        if (index == null || !index.isValid(cells)) {
+            index = new MergedRegions(cells, sheet.getMergedRegions());
+            indexes.put(sheet, index);
+        }
+        return index.find(row, column);
+    }
+
+    /**
+     * Find the merged region which contains the specified cell.
+     * 
+     * @param row A zero-based row index.
+     * @param column A zero-based column index.
+     * @return The region or null.
+     */
+    private CellRangeAddress find(int row, int column) {
+        // search the last region which starts at or before the row
+        int low = 0;
+        int high = regions.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+
+            if (regions[middle].getFirstRow() <= row) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        // no region before this index can reach the row if the furthest last row is above it
+        for (int i = high; 0 <= i && row <= reach[i]; i--) {
+            CellRangeAddress region = regions[i];
+            if (row <= region.getLastRow() && region.getFirstColumn() <= column && column <= region.getLastColumn()) {
+                return region;
+            }
+        }
+        return null;
+    }
+}
\ No newline at end of file
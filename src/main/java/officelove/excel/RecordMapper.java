@@ -0,0 +1,401 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.excel;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import kiss.I;
+import kiss.Model;
+import kiss.Property;
+import officelove.excel.Excel.RowReader;
+
+/**
+ * The mapper from row to the typed object which is compiled once for each pair of sheet header and
+ * type. The converter of each slot is bound to its column index and value type at compile time,
+ * and the record constructor is composed with them into one method handle. So each row costs only
+ * the cell conversion, the primitive component is passed to the constructor without boxing.
+ */
+class RecordMapper<R> {
+
+    /** The lookup for converters. */
+    private static final Lookup LOOKUP = MethodHandles.lookup();
+
+    /** The target type. */
+    private final Class<R> type;
+
+    /** The name of the first mapped column. */
+    private final String key;
+
+    /** The composed constructor (RowReader) -> R, null for model. */
+    private final MethodHandle constructor;
+
+    /** The model of the mutable type, null for record. */
+    private final Model<R> model;
+
+    /** The property for each slot, null for record. */
+    private final Property[] properties;
+
+    /** The converter (RowReader) -> Object for each slot, null for record. */
+    private final MethodHandle[] converters;
+
+    /**
+     * @param type The record or model type.
+     * @param columns The sheet header.
+     */
+    RecordMapper(Class<R> type, ColumnIndex columns) {
+        this.type = type;
+
+        List<String> names = new ArrayList();
+        List<Class> types = new ArrayList();
+        List<Property> properties = new ArrayList();
+
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                names.add(component.getName());
+                types.add(component.getType());
+            }
+            this.model = null;
+        } else {
+            // the property which has no column is left as it is
+            this.model = Model.of(type);
+            for (Property property : model.properties()) {
+                if (columns.contains(property.name)) {
+                    names.add(property.name);
+                    types.add(property.model.type);
+                    properties.add(property);
+                }
+            }
+        }
+
+        String key = null;
+        MethodHandle[] converters = new MethodHandle[names.size()];
+        for (int i = 0; i < converters.length; i++) {
+            int index = columns.indexOf(names.get(i));
+            converters[i] = converter(types.get(i), index);
+
+            if (key == null && index != -1) {
+                key = names.get(i);
+            }
+        }
+
+        if (key == null) {
+            throw new IllegalArgumentException("Sheet has no column for " + type.getName() + ". " + names);
+        }
+        this.key = key;
+
+        try {
+            if (model == null) {
+                Constructor<R> constructor = type.getDeclaredConstructor(types.toArray(Class[]::new));
+                constructor.setAccessible(true);
+
+                // (RowReader, RowReader, ...) -> R is reduced to (RowReader) -> R
+                MethodHandle handle = MethodHandles.filterArguments(LOOKUP.unreflectConstructor(constructor), 0, converters);
+                this.constructor = MethodHandles.permuteArguments(handle, MethodType.methodType(type, RowReader.class), new int[converters.length])
+                        .asType(MethodType.methodType(Object.class, RowReader.class));
+                this.properties = null;
+                this.converters = null;
+            } else {
+                for (int i = 0; i < converters.length; i++) {
+                    converters[i] = converters[i].asType(MethodType.methodType(Object.class, RowReader.class));
+                }
+                this.constructor = null;
+                this.properties = properties.toArray(Property[]::new);
+                this.converters = converters;
+            }
+        } catch (Exception e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Get the name of the first mapped column which is used to detect the blank row.
+     * 
+     * @return
+     */
+    String key() {
+        return key;
+    }
+
+    /**
+     * Map the row to the typed object.
+     * 
+     * @param row
+     * @return
+     */
+    R map(RowReader row) {
+        try {
+            if (constructor != null) {
+                return (R) (Object) constructor.invokeExact(row);
+            }
+
+            R instance = I.make(type);
+            for (int i = 0; i < converters.length; i++) {
+                model.set(instance, properties[i], (Object) converters[i].invokeExact(row));
+            }
+            return instance;
+        } catch (Throwable e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Bind the converter to the column.
+     * 
+     * @param type The value type.
+     * @param index A zero-based column index or -1.
+     * @return The converter (RowReader) -> type.
+     */
+    private static MethodHandle converter(Class type, int index) {
+        try {
+            if (index == -1) {
+                Object initial = RowReader.initial(type);
+                MethodHandle constant = initial == null ? MethodHandles.zero(type) : MethodHandles.constant(type, initial);
+                return MethodHandles.dropArguments(constant, 0, RowReader.class);
+            }
+
+            String name;
+            Class returnType = type;
+            if (type == String.class) {
+                name = "text";
+            } else if (type == int.class || type == Integer.class) {
+                name = "integer";
+                returnType = int.class;
+            } else if (type == long.class || type == Long.class) {
+                name = "longs";
+                returnType = long.class;
+            } else if (type == double.class || type == Double.class) {
+                name = "doubles";
+                returnType = double.class;
+            } else if (type == float.class || type == Float.class) {
+                name = "floats";
+                returnType = float.class;
+            } else if (type == BigDecimal.class) {
+                name = "decimal";
+            } else if (type == LocalDate.class) {
+                name = "date";
+            } else if (type == LocalTime.class) {
+                name = "time";
+            } else {
+                // the other types are converted from text by the type bound converter
+                MethodHandle transform = LOOKUP.findStatic(RecordMapper.class, "transform", MethodType
+                        .methodType(Object.class, RowReader.class, int.class, Class.class));
+                return MethodHandles.insertArguments(transform, 1, index, type).asType(MethodType.methodType(type, RowReader.class));
+            }
+
+            MethodHandle converter = LOOKUP.findStatic(RecordMapper.class, name, MethodType.methodType(returnType, RowReader.class, int.class));
+            return MethodHandles.insertArguments(converter, 1, index).asType(MethodType.methodType(type, RowReader.class));
+        } catch (Exception e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Convert the cell value to text.
+     * 
+     * @param row
+     * @param index
+     * @return
+     */
+    private static String text(RowReader row, int index) {
+        Object value = row.raw(index);
+        if (value instanceof String text) {
+            return text;
+        }
+
+        if (value instanceof Double number) {
+            return text(number);
+        }
+        return "";
+    }
+
+    /**
+     * Convert the cell value to int.
+     * 
+     * @param row
+     * @param index
+     * @return
+     */
+    private static int integer(RowReader row, int index) {
+        Object value = row.raw(index);
+        if (value instanceof Double number) {
+            return (int) number.doubleValue();
+        }
+
+        if (value instanceof String text) {
+            return Integer.parseInt(text);
+        }
+        return 0;
+    }
+
+    /**
+     * Convert the cell value to long.
+     * 
+     * @param row
+     * @param index
+     * @return
+     */
+    private static long longs(RowReader row, int index) {
+        Object value = row.raw(index);
+        if (value instanceof Double number) {
+            return (long) number.doubleValue();
+        }
+
+        if (value instanceof String text) {
+            return Long.parseLong(text);
+        }
+        return 0;
+    }
+
+    /**
+     * Convert the cell value to double.
+     * 
+     * @param row
+     * @param index
+     * @return
+     */
+    private static double doubles(RowReader row, int index) {
+        Object value = row.raw(index);
+        if (value instanceof Double number) {
+            return number;
+        }
+
+        if (value instanceof String text) {
+            return Double.parseDouble(text);
+        }
+        return 0;
+    }
+
+    /**
+     * Convert the cell value to float.
+     * 
+     * @param row
+     * @param index
+     * @return
+     */
+    private static float floats(RowReader row, int index) {
+        Object value = row.raw(index);
+        if (value instanceof Double number) {
+            return (float) number.doubleValue();
+        }
+
+        if (value instanceof String text) {
+            return Float.parseFloat(text);
+        }
+        return 0;
+    }
+
+    /**
+     * Convert the cell value to {@link BigDecimal}.
+     * 
+     * @param row
+     * @param index
+     * @return
+     */
+    private static BigDecimal decimal(RowReader row, int index) {
+        Object value = row.raw(index);
+        if (value instanceof Double number) {
+            return new BigDecimal(text(number));
+        }
+
+        if (value instanceof String text) {
+            return new BigDecimal(text);
+        }
+        return null;
+    }
+
+    /**
+     * Convert the cell value to {@link LocalDate}.
+     * 
+     * @param row
+     * @param index
+     * @return
+     */
+    private static LocalDate date(RowReader row, int index) {
+        LocalDateTime date = dateTime(row, index);
+        if (date != null) {
+            return date.toLocalDate();
+        }
+
+        Object value = row.raw(index);
+        return value instanceof String text ? LocalDate.parse(text) : null;
+    }
+
+    /**
+     * Convert the cell value to {@link LocalTime}.
+     * 
+     * @param row
+     * @param index
+     * @return
+     */
+    private static LocalTime time(RowReader row, int index) {
+        LocalDateTime date = dateTime(row, index);
+        if (date != null) {
+            return date.toLocalTime();
+        }
+
+        Object value = row.raw(index);
+        return value instanceof String text ? LocalTime.parse(text) : null;
+    }
+
+    /**
+     * Convert the numeric cell value to date.
+     * 
+     * @param row
+     * @param index
+     * @return The date or null if the cell is not numeric.
+     */
+    private static LocalDateTime dateTime(RowReader row, int index) {
+        return row.raw(index) instanceof Double number ? DateUtil.getLocalDateTime(number, row.date1904()) : null;
+    }
+
+    /**
+     * Convert the cell value to the specified type via text.
+     * 
+     * @param row
+     * @param index
+     * @param type
+     * @return
+     */
+    private static Object transform(RowReader row, int index, Class type) {
+        Object value = row.raw(index);
+        if (value instanceof String text) {
+            return I.transform(text, type);
+        }
+
+        if (value instanceof Double number) {
+            return I.transform(text(number), type);
+        }
+        return RowReader.initial(type);
+    }
+
+    /**
+     * Format the numeric value without the trailing ".0".
+     * 
+     * @param number
+     * @return
+     */
+    private static String text(double number) {
+        String text = String.valueOf(number);
+        return text.endsWith(".0") ? text.substring(0, text.length() - 2) : text;
+    }
+}
\ No newline at end of file
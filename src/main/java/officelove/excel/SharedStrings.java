@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.excel;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * The read-only shared strings table which stores all items as UTF-8 bytes in one array.
+ * <p>
+ * Each item is located by int offset and decoded on demand. The recently decoded items are cached
+ * by index, so the repeated value (e.g. department name) is decoded once and the same instance is
+ * shared by all cells. The table is immutable after loading and can be shared by threads.
+ * </p>
+ */
+class SharedStrings {
+
+    /** The number of cached items. */
+    private static final int CACHE_SIZE = 4096;
+
+    /** The empty table. */
+    private static final SharedStrings EMPTY = new SharedStrings(new byte[0], new int[] {0}, 0);
+
+    /** The UTF-8 bytes of all items. */
+    private final byte[] bytes;
+
+    /** The start offset of each item, the last element is the end of the last item. */
+    private final int[] offsets;
+
+    /** The number of items. */
+    private final int size;
+
+    /** The decoded items, the slot is shared by the items which have the same hash. */
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+
+    /**
+     * @param bytes
+     * @param offsets
+     * @param size
+     */
+    private SharedStrings(byte[] bytes, int[] offsets, int size) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    /**
+     * Load the shared strings of the specified workbook.
+     * 
+     * @param pkg
+     * @return
+     */
+    static SharedStrings load(OPCPackage pkg) throws Exception {
+        List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        if (parts.isEmpty()) {
+            return EMPTY;
+        }
+
+        try (InputStream input = parts.get(0).getInputStream()) {
+            Handler handler = new Handler();
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(handler);
+            parser.parse(new InputSource(input));
+
+            return new SharedStrings(Arrays.copyOf(handler.bytes, handler.length), Arrays
+                    .copyOf(handler.offsets, handler.size + 1), handler.size);
+        }
+    }
+
+    /**
+     * Get the number of items.
+     * 
+     * @return
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the item.
+     * 
+     * @param index A zero-based item index.
+     * @return The item or null.
+     */
+    String get(int index) {
+        if (index < 0 || size <= index) {
+            return null;
+        }
+
+        int slot = index % CACHE_SIZE;
+        Entry entry = cache[slot];
+        if (entry == null || entry.index != index) {
+            entry = new Entry(index, new String(bytes, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8));
+
+            // The race is benign because the entry is immutable.
+            cache[slot] = entry;
+        }
+        return entry.value;
+    }
+
+    /**
+     * The decoded item.
+     */
+    private record Entry(int index, String value) {
+    }
+
+    /**
+     * SAX handler for the shared strings part.
+     */
+    private static class Handler extends DefaultHandler {
+
+        /** The text buffer. */
+        private final StringBuilder text = new StringBuilder();
+
+        /** The UTF-8 bytes of all items. */
+        private byte[] bytes = new byte[8192];
+
+        /** The used length of bytes. */
+        private int length;
+
+        /** The start offset of each item. */
+        private int[] offsets = new int[1024];
+
+        /** The number of items. */
+        private int size;
+
+        /** The processing state. */
+        private boolean inText;
+
+        /** The depth of phonetic elements, the text inside them is not the cell value. */
+        private int phonetic;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (StreamingSheet.local(localName, qName)) {
+            case "sst":
+                String count = attributes.getValue("uniqueCount");
+                if (count != null) {
+                    offsets = new int[Math.max(1, Integer.parseInt(count)) + 1];
+                }
+                break;
+
+            case "si":
+                text.setLength(0);
+                phonetic = 0;
+                break;
+
+            case "rPh":
+            case "phoneticPr":
+                phonetic++;
+                break;
+
+            case "t":
+                inText = phonetic == 0;
+                break;
+
+            default:
+                break;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (StreamingSheet.local(localName, qName)) {
+            case "t":
+                inText = false;
+                break;
+
+            case "rPh":
+            case "phoneticPr":
+                phonetic--;
+                break;
+
+            case "si":
+                add(decode(text));
+                break;
+
+            default:
+                break;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        /**
+         * Store the item.
+         * 
+         * @param item
+         */
+        private void add(String item) {
+            byte[] encoded = item.getBytes(StandardCharsets.UTF_8);
+
+            if (bytes.length < length + encoded.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + encoded.length, bytes.length * 2));
+            }
+
+            if (offsets.length < size + 2) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+
+            System.arraycopy(encoded, 0, bytes, length, encoded.length);
+            offsets[size] = length;
+            length += encoded.length;
+            offsets[++size] = length;
+        }
+
+        /**
+         * Decode the escaped character like "_x000D_" as same as POI.
+         * 
+         * @param text
+         * @return
+         */
+        private static String decode(CharSequence text) {
+            String value = text.toString();
+            if (value.indexOf("_x") == -1) {
+                return value;
+            }
+
+            StringBuilder builder = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+
+                if (c == '_' && i + 6 < value.length() && value.charAt(i + 1) == 'x' && value.charAt(i + 6) == '_') {
+                    try {
+                        builder.append((char) Integer.parseInt(value, i + 2, i + 6, 16));
+                        i += 6;
+                        continue;
+                    } catch (NumberFormatException e) {
+                        // not escaped
+                    }
+                }
+                builder.append(c);
+            }
+            return builder.toString();
+        }
+
+    }
+}
\ No newline at end of file
@@ -0,0 +1,618 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.excel;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.apache.poi.ooxml.POIXMLTypeLoader;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFReader.SheetIterator;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbookPr;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.WorkbookDocument;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import kiss.I;
+import kiss.Signal;
+import kiss.WiseConsumer;
+import officelove.excel.Excel.RowReader;
+import psychopath.File;
+
+/**
+ * SAX based sheet reader which emits each row as soon as it is parsed, so the memory usage doesn't
+ * depend on the size of sheet.
+ */
+class StreamingSheet {
+
+    /** The marker of the cell which has neither text nor number. */
+    static final Object NONE = new Object();
+
+    /** The marker of the end of sheet in parallel reading. */
+    private static final Object END = new Object();
+
+    /** The number of buffered rows for each queue in parallel reading. */
+    private static final int BUFFER_SIZE = 1024;
+
+    /** The workbook file. */
+    private final File file;
+
+    /** The sheet name. */
+    final String name;
+
+    /** The cached header. */
+    private volatile ColumnIndex columns;
+
+    /** The date system of workbook, true if the dates are based on 1904. */
+    private volatile boolean date1904;
+
+    /**
+     * @param file
+     * @param name
+     */
+    StreamingSheet(File file, String name) {
+        this.file = file;
+        this.name = name;
+    }
+
+    /**
+     * Read data from row.
+     * 
+     * @param headerName
+     * @return
+     */
+    Signal<RowReader> read(String headerName) {
+        if (headerName == null || headerName.isBlank()) {
+            throw new IllegalArgumentException("Header name is unknown, please specify the valid name.");
+        }
+
+        return new Signal<>((observer, disposer) -> {
+            try {
+                if (parse(null, rows(headerName, false, observer::accept, disposer::isDisposed))) {
+                    observer.complete();
+                }
+            } catch (Throwable e) {
+                observer.error(e);
+            }
+            return disposer;
+        });
+    }
+
+    /**
+     * Read data from row of all sheets in parallel. The shared strings are loaded only once and
+     * each sheet is parsed on its own thread. The sheet which has no such header is skipped.
+     * 
+     * @param file
+     * @param headerName
+     * @param parallelism The maximum number of sheets which are parsed at the same time.
+     * @param ordered true to emit all rows in sheet order, false to emit rows as soon as they are
+     *            parsed.
+     * @return
+     */
+    static Signal<RowReader> readAll(File file, String headerName, int parallelism, boolean ordered) {
+        if (headerName == null || headerName.isBlank()) {
+            throw new IllegalArgumentException("Header name is unknown, please specify the valid name.");
+        }
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive. [" + parallelism + "]");
+        }
+
+        return new Signal<>((observer, disposer) -> {
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+            try {
+                List<StreamingSheet> sheets = sheets(file);
+                SharedStrings strings = strings(file);
+
+                // The rows are passed to the subscriber thread through the bounded queue. In ordered
+                // mode, each sheet has its own queue and the earliest unfinished sheet always holds
+                // the permit, so the later sheets which fill their queues never block it.
+                Semaphore permits = new Semaphore(parallelism);
+                List<BlockingQueue<Object>> queues = new ArrayList();
+                BlockingQueue<Object> shared = new ArrayBlockingQueue(BUFFER_SIZE);
+                for (int i = 0; i < sheets.size(); i++) {
+                    queues.add(ordered ? new ArrayBlockingQueue(BUFFER_SIZE) : shared);
+                }
+
+                executor.submit(() -> {
+                    for (int i = 0; i < sheets.size() && !disposer.isDisposed(); i++) {
+                        StreamingSheet sheet = sheets.get(i);
+                        BlockingQueue<Object> queue = queues.get(i);
+
+                        permits.acquire();
+                        executor.submit(() -> {
+                            Object end = END;
+                            try {
+                                sheet.parse(strings, sheet.rows(headerName, true, row -> put(queue, row, executor), disposer::isDisposed));
+                            } catch (Throwable e) {
+                                end = e;
+                            } finally {
+                                permits.release();
+                            }
+                            put(queue, end, executor);
+                            return null;
+                        });
+                    }
+                    return null;
+                });
+
+                // emit rows on the subscriber thread
+                int finished = 0;
+                while (finished < sheets.size() && !disposer.isDisposed()) {
+                    Object item = queues.get(ordered ? finished : 0).take();
+
+                    if (item instanceof RowReader row) {
+                        observer.accept(row);
+                    } else if (item instanceof Throwable error) {
+                        throw error;
+                    } else {
+                        finished++;
+                    }
+                }
+
+                if (!disposer.isDisposed()) {
+                    observer.complete();
+                }
+            } catch (Throwable e) {
+                observer.error(e);
+            } finally {
+                executor.shutdownNow();
+            }
+            return disposer;
+        });
+    }
+
+    /**
+     * Pass the item to the subscriber thread. It gives up when the reading is cancelled.
+     * 
+     * @param queue
+     * @param item
+     * @param executor
+     */
+    private static void put(BlockingQueue<Object> queue, Object item, ExecutorService executor) throws InterruptedException {
+        while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+            if (executor.isShutdown()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Build the row listener which emits the row whose specified column is not blank.
+     * 
+     * @param headerName
+     * @param lenient true to skip this sheet if it has no such header, false to throw error.
+     * @param action
+     * @param disposed
+     * @return
+     */
+    private RowListener rows(String headerName, boolean lenient, WiseConsumer<RowReader> action, BooleanSupplier disposed) {
+        int[] index = {-1};
+        ColumnIndex[] mapping = {columns};
+
+        return (row, values) -> {
+            if (index[0] == -1) {
+                // create header mapping only once
+                if (mapping[0] == null) {
+                    mapping[0] = header(row, values);
+                }
+
+                if (lenient && !mapping[0].contains(headerName)) {
+                    return true;
+                }
+
+                // specify the target header
+                index[0] = mapping[0].column(headerName).index();
+            } else if (index[0] < values.length) {
+                Object value = values[index[0]];
+
+                if (value != null && !(value instanceof String text && text.isBlank())) {
+                    action.accept(new RowReader(values, mapping[0], name, date1904));
+                }
+            }
+            return disposed.getAsBoolean();
+        };
+    }
+
+    /**
+     * Get the header of this sheet. Only the first row is parsed at the first call.
+     * 
+     * @return
+     */
+    ColumnIndex columns() {
+        if (columns == null) {
+            try {
+                parse((row, values) -> {
+                    header(row, values);
+                    return true;
+                });
+            } catch (Throwable e) {
+                throw I.quiet(e);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Parse all rows of this sheet.
+     * 
+     * @param rows The row listener which returns true to stop parsing.
+     * @return true if all rows are parsed, false if the listener stops parsing.
+     */
+    boolean parse(RowListener rows) throws Exception {
+        return parse(null, rows);
+    }
+
+    /**
+     * Parse all rows of this sheet.
+     * 
+     * @param strings The loaded shared strings or null.
+     * @param rows The row listener which returns true to stop parsing.
+     * @return true if all rows are parsed, false if the listener stops parsing.
+     */
+    private boolean parse(SharedStrings strings, RowListener rows) throws Exception {
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(file.asJavaFile(), PackageAccess.READ);
+            XSSFReader reader = new XSSFReader(pkg);
+            date1904 = date1904(reader);
+            if (strings == null) {
+                strings = SharedStrings.load(pkg);
+            }
+
+            try (InputStream sheet = open(reader, name)) {
+                if (sheet == null) {
+                    throw new IllegalArgumentException("Sheet name is unknown, please specify the valid name.");
+                }
+                parse(sheet, strings, rows);
+            }
+            return true;
+        } catch (Disposed e) {
+            return false;
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+        }
+    }
+
+    /**
+     * Build and cache the header from the first parsed row.
+     * 
+     * @param row A zero-based row index.
+     * @param values
+     * @return
+     */
+    private ColumnIndex header(int row, Object[] values) {
+        return columns = new ColumnIndex(row == 0 ? values : new Object[0]);
+    }
+
+    /**
+     * List up all sheets in the specified workbook.
+     * 
+     * @param file
+     * @return
+     */
+    static List<StreamingSheet> sheets(File file) {
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(file.asJavaFile(), PackageAccess.READ);
+            List<StreamingSheet> sheets = new ArrayList();
+            SheetIterator iterator = (SheetIterator) new XSSFReader(pkg).getSheetsData();
+
+            while (iterator.hasNext()) {
+                iterator.next().close();
+                sheets.add(new StreamingSheet(file, iterator.getSheetName()));
+            }
+            return sheets;
+        } catch (Throwable e) {
+            throw I.quiet(e);
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+        }
+    }
+
+    /**
+     * Load the shared strings of the specified workbook.
+     * 
+     * @param file
+     * @return
+     */
+    private static SharedStrings strings(File file) throws Exception {
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(file.asJavaFile(), PackageAccess.READ);
+            return SharedStrings.load(pkg);
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+        }
+    }
+
+    /**
+     * Check whether the dates in the workbook are based on 1904.
+     * 
+     * @param reader
+     * @return
+     */
+    private static boolean date1904(XSSFReader reader) throws Exception {
+        try (InputStream input = reader.getWorkbookData()) {
+            CTWorkbookPr properties = WorkbookDocument.Factory.parse(input, POIXMLTypeLoader.DEFAULT_XML_OPTIONS)
+                    .getWorkbook()
+                    .getWorkbookPr();
+
+            return properties != null && properties.getDate1904();
+        }
+    }
+
+    /**
+     * Open the named sheet data.
+     * 
+     * @param reader
+     * @param name
+     * @return The sheet data or null.
+     */
+    private static InputStream open(XSSFReader reader, String name) throws Exception {
+        SheetIterator iterator = (SheetIterator) reader.getSheetsData();
+
+        while (iterator.hasNext()) {
+            InputStream input = iterator.next();
+
+            if (iterator.getSheetName().equals(name)) {
+                return input;
+            }
+            input.close();
+        }
+        return null;
+    }
+
+    /**
+     * Parse the sheet data.
+     * 
+     * @param input The sheet data.
+     * @param strings The shared strings.
+     * @param rows The row listener which returns true to stop parsing.
+     */
+    private static void parse(InputStream input, SharedStrings strings, RowListener rows) throws Exception {
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(new RowHandler(strings, rows));
+        parser.parse(new InputSource(input));
+    }
+
+    /**
+     * Listener for the parsed row.
+     */
+    interface RowListener {
+
+        /**
+         * Accept the parsed row.
+         * 
+         * @param row A zero-based row index.
+         * @param values A list of cell values, {@link String}, {@link Double}, {@link #NONE} or
+         *            null.
+         * @return true to stop parsing.
+         */
+        boolean accept(int row, Object[] values);
+    }
+
+    /**
+     * SAX handler for the sheet data.
+     */
+    private static class RowHandler extends DefaultHandler {
+
+        /** The shared strings. */
+        private final SharedStrings strings;
+
+        /** The row listener. */
+        private final RowListener listener;
+
+        /** The text buffer. */
+        private final StringBuilder text = new StringBuilder();
+
+        /** The current row values. */
+        private Object[] values = new Object[16];
+
+        /** The current row index. */
+        private int row = -1;
+
+        /** The current column index. */
+        private int column = -1;
+
+        /** The number of columns in the current row. */
+        private int size;
+
+        /** The current cell type. */
+        private String type;
+
+        /** The processing state. */
+        private boolean inValue;
+
+        /**
+         * @param strings
+         * @param listener
+         */
+        private RowHandler(SharedStrings strings, RowListener listener) {
+            this.strings = strings;
+            this.listener = listener;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            switch (local(localName, qName)) {
+            case "row":
+                String r = attributes.getValue("r");
+                row = r == null ? row + 1 : Integer.parseInt(r) - 1;
+                column = -1;
+                size = 0;
+                Arrays.fill(values, null);
+                break;
+
+            case "c":
+                column = column(attributes.getValue("r"), column + 1);
+                type = attributes.getValue("t");
+                text.setLength(0);
+                break;
+
+            case "v":
+            case "t":
+                inValue = true;
+                break;
+
+            default:
+                break;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (local(localName, qName)) {
+            case "v":
+            case "t":
+                inValue = false;
+                break;
+
+            case "c":
+                if (text.length() != 0 || "inlineStr".equals(type)) {
+                    put(column, value(type, text.toString()));
+                }
+                break;
+
+            case "row":
+                if (listener.accept(row, Arrays.copyOf(values, size))) {
+                    throw new Disposed();
+                }
+                break;
+
+            default:
+                break;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (inValue) {
+                text.append(ch, start, length);
+            }
+        }
+
+        /**
+         * Store the cell value.
+         * 
+         * @param index
+         * @param value
+         */
+        private void put(int index, Object value) {
+            if (values.length <= index) {
+                values = Arrays.copyOf(values, Math.max(index + 1, values.length * 2));
+            }
+            values[index] = value;
+            size = Math.max(size, index + 1);
+        }
+
+        /**
+         * Convert the raw text to the cell value.
+         * 
+         * @param type
+         * @param text
+         * @return
+         */
+        private Object value(String type, String text) {
+            if (type == null || type.equals("n")) {
+                return Double.valueOf(text);
+            }
+
+            switch (type) {
+            case "s":
+                return strings.get(Integer.parseInt(text));
+
+            case "str":
+            case "inlineStr":
+                return text;
+
+            default:
+                return NONE;
+            }
+        }
+    }
+
+    /**
+     * Compute the zero-based column index from the cell reference.
+     * 
+     * @param reference A cell reference like "AB12".
+     * @param defaultIndex
+     * @return
+     */
+    static int column(String reference, int defaultIndex) {
+        if (reference == null) {
+            return defaultIndex;
+        }
+
+        int index = 0;
+        for (int i = 0; i < reference.length(); i++) {
+            char c = reference.charAt(i);
+
+            if ('A' <= c && c <= 'Z') {
+                index = index * 26 + (c - 'A' + 1);
+            } else {
+                break;
+            }
+        }
+        return index - 1;
+    }
+
+    /**
+     * Helper method to compute the local name of element.
+     * 
+     * @param localName
+     * @param qName
+     * @return
+     */
+    static String local(String localName, String qName) {
+        if (localName != null && !localName.isEmpty()) {
+            return localName;
+        }
+        return qName.substring(qName.indexOf(':') + 1);
+    }
+
+    /**
+     * The signal to stop parsing.
+     */
+    @SuppressWarnings("serial")
+    private static class Disposed extends SAXException {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.expression;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+
+import kiss.I;
+import kiss.Model;
+import kiss.Property;
+
+/**
+ * The compiled expression which is tokenized only once and caches the resolved accessor for each
+ * receiver type.
+ */
+class Expression {
+
+    /** The maximum number of cached expressions. */
+    private static final int CACHE_SIZE = 2048;
+
+    /** The compiled expressions, the lookup takes no lock. */
+    private static final Map<String, Expression> cache = new ConcurrentHashMap();
+
+    /** The expression text without optional mark. */
+    final String text;
+
+    /** The optional mark. */
+    final boolean optional;
+
+    /** The tokenized steps. */
+    final List<Step> steps;
+
+    /**
+     * @param text
+     */
+    private Expression(String text) {
+        this.optional = text.endsWith("?");
+        this.text = optional ? text.substring(0, text.length() - 1) : text;
+        this.steps = I.signal(parse(this.text)).map(Step::new).toList();
+    }
+
+    /**
+     * Compile the specified expression.
+     * 
+     * @param text
+     * @return
+     */
+    static Expression of(String text) {
+        Expression expression = cache.get(text);
+
+        if (expression == null) {
+            expression = new Expression(text);
+
+            Expression previous = cache.putIfAbsent(text, expression);
+            if (previous != null) {
+                return previous;
+            }
+
+            // evict an arbitrary entry to keep the cache bounded
+            if (CACHE_SIZE < cache.size()) {
+                Iterator<String> keys = cache.keySet().iterator();
+                if (keys.hasNext()) {
+                    keys.next();
+                    keys.remove();
+                }
+            }
+        }
+        return expression;
+    }
+
+    /**
+     * Parse the expression.
+     * 
+     * @param expression
+     * @return
+     */
+    private static List<String> parse(String expression) {
+        List<String> parts = new ArrayList();
+        boolean sequencial = false;
+        StringBuilder part = new StringBuilder();
+
+        for (int i = 0, length = expression.length(); i < length; i++) {
+            char c = expression.charAt(i);
+            switch (c) {
+            case ' ':
+            case '\t':
+            case '\r':
+            case '\n':
+                sequencial = false;
+                break; // ignore space
+
+            case '.':
+                sequencial = false;
+                if (i + 1 != length && Character
+                        .isDigit(expression.charAt(i + 1)) && (0 <= i - 1 && Character.isDigit(expression.charAt(i - 1)))) {
+                    part.append(c);
+                } else {
+                    parts.add(part.toString());
+                    part.setLength(0);
+                }
+                break;
+
+            case '+':
+            case '-':
+            case '*':
+            case '/':
+            case '%':
+            case '#':
+            case '&':
+            case '!':
+            case '=':
+            case '<':
+            case '>':
+            case '?':
+            case '@':
+                if (sequencial) {
+                    // do nothing
+                } else {
+                    sequencial = true;
+                    parts.add(part.toString());
+                    part.setLength(0);
+                }
+                part.append(c);
+                break;
+
+            default:
+                sequencial = false;
+                part.append(c);
+                break;
+            }
+        }
+        parts.add(part.toString());
+        return parts;
+    }
+
+    /**
+     * The part of expression.
+     */
+    static class Step {
+
+        /** The step text. */
+        final String text;
+
+        /** The method name or null when the parenthesis is malformed. */
+        private final String name;
+
+        /** The method parameters. */
+        private final List<String> parameters;
+
+        /** The matching state of {@link ExpressionResolver} by its type. */
+        private final Map<Class, Boolean> resolvers = new ConcurrentHashMap();
+
+        /** The resolved accessors by the receiver model. */
+        private final Map<Model, Accessor> accessors = new ConcurrentHashMap();
+
+        /**
+         * @param text
+         */
+        private Step(String text) {
+            this.text = text;
+
+            int start = text.indexOf("(");
+            int end = text.lastIndexOf(")");
+
+            if (start == -1 && end == -1) {
+                // without parameter
+                name = text;
+                parameters = Collections.EMPTY_LIST;
+            } else if (start != -1 && end != -1) {
+                // with parameter
+                name = text.substring(0, start);
+                parameters = Arrays.stream(text.substring(start + 1, end).split(",")).map(String::strip).toList();
+            } else {
+                name = null;
+                parameters = Collections.EMPTY_LIST;
+            }
+        }
+
+        /**
+         * Match this step by the specified resolver. The matching state is cached for each resolver
+         * type, so the unresolvable step costs no regular expression. The resolvable step creates the
+         * new matcher for each evaluation because the resolver may change its state.
+         * 
+         * @param resolver
+         * @return The matched result or null.
+         */
+        Matcher match(ExpressionResolver resolver) {
+            if (resolvers.computeIfAbsent(resolver.getClass(), type -> resolver.match(text).matches())) {
+                Matcher matcher = resolver.match(text);
+                if (matcher.matches()) {
+                    return matcher;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Find the property or method accessor for the specified receiver model.
+         * 
+         * @param model
+         * @return The accessor or null.
+         */
+        Accessor accessor(Model model) throws IllegalAccessException {
+            Accessor accessor = accessors.get(model);
+
+            if (accessor == null) {
+                accessor = search(model);
+                accessors.put(model, accessor);
+            }
+            return accessor == Accessor.NONE ? null : accessor;
+        }
+
+        /**
+         * Search the property or method accessor for the specified receiver model.
+         * 
+         * @param model
+         * @return
+         */
+        private Accessor search(Model model) throws IllegalAccessException {
+            // Search from properties
+            Property property = model.property(text);
+
+            if (property != null) {
+                return new Accessor(property, null, null);
+            }
+
+            // Search from methods
+            if (name != null) {
+                for (Method method : model.type.getMethods()) {
+                    // exclude void type
+                    if (method.getReturnType() == void.class) {
+                        continue;
+                    }
+
+                    if (method.getName().equals(name) && method.getParameterCount() == parameters.size()) {
+                        Object[] params = new Object[parameters.size()];
+
+                        for (int i = 0; i < parameters.size(); i++) {
+                            params[i] = I.transform(parameters.get(i), method.getParameterTypes()[i]);
+                        }
+                        method.setAccessible(true);
+                        return new Accessor(null, method, bind(method, params));
+                    }
+                }
+            }
+            return Accessor.NONE;
+        }
+
+        /**
+         * Bind the constant parameters to the method and build the invoker which accepts only the
+         * receiver object.
+         * 
+         * @param method
+         * @param params
+         * @return
+         */
+        private static MethodHandle bind(Method method, Object[] params) throws IllegalAccessException {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(MethodHandles.insertArguments(handle, 0, params), 0, Object.class);
+            } else {
+                handle = MethodHandles.insertArguments(handle, 1, params);
+            }
+            return handle.asType(MethodType.methodType(Object.class, Object.class));
+        }
+    }
+
+    /**
+     * The resolved property or method.
+     */
+    static class Accessor {
+
+        /** The unresolvable marker. */
+        private static final Accessor NONE = new Accessor(null, null, null);
+
+        /** The property. */
+        final Property property;
+
+        /** The method. */
+        final Method method;
+
+        /** The method invoker which is bound to the pre-converted parameters. */
+        final MethodHandle invoker;
+
+        /**
+         * @param property
+         * @param method
+         * @param invoker
+         */
+        private Accessor(Property property, Method method, MethodHandle invoker) {
+            this.property = property;
+            this.method = method;
+            this.invoker = invoker;
+        }
+    }
+}
\ No newline at end of file
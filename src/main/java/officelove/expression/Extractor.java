@@ -9,6 +9,7 @@
  */
 package officelove.expression;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.util.regex.Matcher;
 
@@ -57,9 +58,10 @@ public interface Extractor<R> {
      * Method based balue extractor.
      * 
      * @param method
-     * @param params
+     * @param invoker The method handle which is bound to the parameters and accepts only the
+     *            receiver.
      * @param object
      * @return
      */
-    R extract(Method method, Object[] params, R object) throws Exception;
+    R extract(Method method, MethodHandle invoker, R object) throws Throwable;
 }
\ No newline at end of file
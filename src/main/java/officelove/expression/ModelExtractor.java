@@ -9,6 +9,7 @@
  */
 package officelove.expression;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.util.regex.Matcher;
 
@@ -53,7 +54,7 @@ class ModelExtractor implements Extractor<Model> {
      * {@inheritDoc}
      */
     @Override
-    public Model extract(Method method, Object[] params, Model object) throws Exception {
+    public Model extract(Method method, MethodHandle invoker, Model object) throws Throwable {
         return Model.of(method.getReturnType());
     }
 }
\ No newline at end of file
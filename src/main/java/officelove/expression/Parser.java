@@ -9,9 +9,6 @@
  */
 package officelove.expression;
 
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -22,7 +19,8 @@ import java.util.regex.Matcher;
 
 import kiss.I;
 import kiss.Model;
-import kiss.Property;
+import officelove.expression.Expression.Accessor;
+import officelove.expression.Expression.Step;
 
 /**
  * Parser for the expression language.
@@ -152,28 +150,23 @@ public class Parser implements UnaryOperator<String> {
     /**
      * Compute the specified property variable.
      * 
-     * @param expression
+     * @param text
      * @return
      */
-    public Object resolve(String expression) {
+    public Object resolve(String text) {
         Set<String> errors = new HashSet();
 
-        boolean optional = expression.endsWith("?");
-        if (optional) {
-            expression = expression.substring(0, expression.length() - 1);
-        }
-
-        List<String> expressions = parse(expression);
-        if (expressions.isEmpty()) {
+        Expression expression = Expression.of(text);
+        if (expression.steps.isEmpty()) {
             return "";
         }
 
         // resolve value from various sources
         for (int i = 0; i < models.size(); i++) {
             try {
-                return resolve(expressions, 0, models.get(i));
+                return resolve(expression.steps, 0, models.get(i));
             } catch (ExpressionException e) {
-                if (!optional) {
+                if (!expression.optional) {
                     errors.add(e.getMessage());
                 }
             }
@@ -183,7 +176,7 @@ public class Parser implements UnaryOperator<String> {
             return ""; // optional
         } else {
             StringBuilder builder = new StringBuilder();
-            builder.append("There are several problems with this expression. {" + expression + "}");
+            builder.append("There are several problems with this expression. {" + expression.text + "}");
             for (String error : errors) {
                 builder.append("\n\t").append(error);
             }
@@ -191,153 +184,61 @@ public class Parser implements UnaryOperator<String> {
         }
     }
 
-    /**
-     * Parse the expression.
-     * 
-     * @param expression
-     * @return
-     */
-    private List<String> parse(String expression) {
-        List<String> parts = new ArrayList();
-        boolean sequencial = false;
-        StringBuilder part = new StringBuilder();
-
-        for (int i = 0, length = expression.length(); i < length; i++) {
-            char c = expression.charAt(i);
-            switch (c) {
-            case ' ':
-            case '\t':
-            case '\r':
-            case '\n':
-                sequencial = false;
-                break; // ignore space
-
-            case '.':
-                sequencial = false;
-                if (i + 1 != length && Character
-                        .isDigit(expression.charAt(i + 1)) && (0 <= i - 1 && Character.isDigit(expression.charAt(i - 1)))) {
-                    part.append(c);
-                } else {
-                    parts.add(part.toString());
-                    part.setLength(0);
-                }
-                break;
-
-            case '+':
-            case '-':
-            case '*':
-            case '/':
-            case '%':
-            case '#':
-            case '&':
-            case '!':
-            case '=':
-            case '<':
-            case '>':
-            case '?':
-            case '@':
-                if (sequencial) {
-                    // do nothing
-                } else {
-                    sequencial = true;
-                    parts.add(part.toString());
-                    part.setLength(0);
-                }
-                part.append(c);
-                break;
-
-            default:
-                sequencial = false;
-                part.append(c);
-                break;
-            }
-        }
-        parts.add(part.toString());
-        return parts;
-    }
-
     /**
      * Compute the specified property variable.
      * 
-     * @param expressions
+     * @param steps
      * @param index
      * @param value
      * @return
      */
-    private Object resolve(List<String> expressions, int index, Object value) {
+    private Object resolve(List<Step> steps, int index, Object value) {
         if (value == null || value == "") {
             return "";
         }
 
-        if (expressions.size() == index) {
+        if (steps.size() == index) {
             return value;
         }
 
-        String expression = expressions.get(index);
+        Step step = steps.get(index);
+        String expression = step.text;
 
         if (index == 0 && expression.charAt(0) == '$') {
-            return resolve(expressions, 1, resolveBuiltinVariable(expression.substring(1)));
+            return resolve(steps, 1, resolveBuiltinVariable(expression.substring(1)));
         }
 
         for (int i = 0; i < resolvers.size(); i++) {
             if (resolverTypes.get(i).isInstance(value) || value instanceof Model) {
                 ExpressionResolver resolver = resolvers.get(i);
-                Matcher matcher = resolver.match(expression);
+                Matcher matcher = step.match(resolver);
 
-                if (matcher.matches()) {
-                    return resolve(expressions, index + 1, extractor.extract(resolver, matcher, value));
+                if (matcher != null) {
+                    return resolve(steps, index + 1, extractor.extract(resolver, matcher, value));
                 }
             }
         }
 
         Model model = extractor.model(value);
-        Property property = model.property(expression);
-
-        // Search from properties
-        if (property != null) {
-            return resolve(expressions, index + 1, extractor.extract(model, property, value));
-        }
 
-        // Search from methods
         try {
-            int start = expression.indexOf("(");
-            int end = expression.lastIndexOf(")");
-
-            String name;
-            List<String> parametersText;
-
-            if (start == -1 && end == -1) {
-                // without parameter
-                name = expression;
-                parametersText = Collections.EMPTY_LIST;
-            } else if (start != -1 && end != -1) {
-                // with parameter
-                name = expression.substring(0, start);
-                parametersText = Arrays.stream(expression.substring(start + 1, end).split(",")).map(String::strip).toList();
-            } else {
+            Accessor accessor = step.accessor(model);
+
+            if (accessor == null) {
                 throw errorInVariableResolve(value, expression);
             }
 
-            for (Method method : model.type.getMethods()) {
-                // exclude void type
-                if (method.getReturnType() == void.class) {
-                    continue;
-                }
-
-                if (method.getName().equals(name) && method.getParameterCount() == parametersText.size()) {
-                    Object[] params = new Object[parametersText.size()];
-
-                    for (int i = 0; i < parametersText.size(); i++) {
-                        params[i] = I.transform(parametersText.get(i), method.getParameterTypes()[i]);
-                    }
-                    method.setAccessible(true);
-                    return resolve(expressions, index + 1, extractor.extract(method, params, value));
-                }
+            // Search from properties
+            if (accessor.property != null) {
+                return resolve(steps, index + 1, extractor.extract(model, accessor.property, value));
             }
-            throw errorInVariableResolve(value, expression);
-        } catch (ExpressionException e) {
+
+            // Search from methods
+            return resolve(steps, index + 1, extractor.extract(accessor.method, accessor.invoker, value));
+        } catch (ExpressionException | Error e) {
+            // the fatal error like StackOverflowError must not be rendered as value
             throw e;
-        } catch (Exception e) {
+        } catch (Throwable e) {
             ExpressionException error = errorInVariableResolve(value, expression);
             error.addSuppressed(e);
             return error;
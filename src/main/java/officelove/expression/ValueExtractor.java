@@ -9,6 +9,7 @@
  */
 package officelove.expression;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.util.regex.Matcher;
 
@@ -53,7 +54,7 @@ class ValueExtractor implements Extractor<Object> {
      * {@inheritDoc}
      */
     @Override
-    public Object extract(Method method, Object[] params, Object object) throws Exception {
-        return method.invoke(object, params);
+    public Object extract(Method method, MethodHandle invoker, Object object) throws Throwable {
+        return (Object) invoker.invokeExact(object);
     }
 }
\ No newline at end of file
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.word;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFFooter;
+import org.apache.poi.xwpf.usermodel.XWPFHeader;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTP;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTSectPr;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTextDirection;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STTextDirection;
+
+import kiss.I;
+import kiss.WiseSupplier;
+import psychopath.File;
+
+/**
+ * The template which is parsed only once and can be evaluated many times.
+ * <p>
+ * The template file is read and unzipped at construction, the resulting package is kept in memory
+ * without compression and each {@link #create()} builds the new document from it. All paragraphs
+ * are scanned beforehand, so the evaluation can skip the paragraphs which never change.
+ * </p>
+ */
+public class CompiledTemplate {
+
+    /** The template name. */
+    final String name;
+
+    /** The uncompressed template package. */
+    private final byte[] skeleton;
+
+    /** The text direction. */
+    private final boolean textIsVerticalAlign;
+
+    /** The pre-scanned instructions in traversal order. */
+    private final List<Instruction> instructions;
+
+    /**
+     * Compile the template for word.
+     * 
+     * @param file
+     */
+    public CompiledTemplate(File file) {
+        this(file.absolutize().toString(), file::newInputStream);
+    }
+
+    /**
+     * Compile the template for word.
+     * 
+     * @param file
+     */
+    public CompiledTemplate(URL file) {
+        this(URLDecoder.decode(file.toString(), StandardCharsets.UTF_8), file::openStream);
+    }
+
+    /**
+     * Compile the template for word.
+     * 
+     * @param name
+     * @param input
+     */
+    CompiledTemplate(String name, WiseSupplier<InputStream> input) {
+        try (InputStream stream = input.get()) {
+            this.name = name;
+            this.skeleton = store(stream);
+
+            try (XWPFDocument document = new XWPFDocument(open())) {
+                CTSectPr section = document.getDocument().getBody().getSectPr();
+                CTTextDirection direction = section == null ? null : section.getTextDirection();
+
+                this.textIsVerticalAlign = direction != null && direction.getVal() == STTextDirection.TB_RL;
+                this.instructions = List.copyOf(scan(document));
+            }
+        } catch (Throwable e) {
+            throw I.quiet(e);
+        }
+    }
+
+    /**
+     * Create the new document from this template.
+     * 
+     * @return A pristine document.
+     */
+    public Word create() {
+        return new Word(this);
+    }
+
+    /**
+     * Calculate variables by the given model.
+     * 
+     * @param model One model.
+     * @param others Other models.
+     * @return
+     */
+    public Word evaluate(Object model, Object... others) {
+        return create().evaluate(model, others);
+    }
+
+    /**
+     * Calculate variables by the given model.
+     * 
+     * @param models
+     * @return
+     */
+    public Word evaluate(List models) {
+        return create().evaluate(models);
+    }
+
+    /**
+     * Calculate variables by the given model list and merge them all.
+     * 
+     * @param models
+     * @return
+     */
+    public Word evaluateAndMerge(List models, Object... additions) {
+        return create().evaluateAndMerge(models, additions);
+    }
+
+    /**
+     * Open the in-memory package.
+     * 
+     * @return
+     */
+    InputStream open() {
+        return new ByteArrayInputStream(skeleton);
+    }
+
+    /**
+     * Compute the approximate memory usage of this template.
+     * 
+     * @return A number of bytes.
+     */
+    long weight() {
+        return skeleton.length;
+    }
+
+    /**
+     * Check whether the paragraph at the specified traversal order doesn't contain any expression.
+     * 
+     * @param ordinal A traversal order.
+     * @param paragraph A paragraph in the evaluating document.
+     * @return
+     */
+    boolean isStatic(int ordinal, XWPFParagraph paragraph) {
+        if (textIsVerticalAlign || instructions.size() <= ordinal) {
+            return false;
+        }
+
+        Instruction instruction = instructions.get(ordinal);
+        return !instruction.evaluable && instruction.runs == paragraph.getRuns().size();
+    }
+
+    /**
+     * Scan all paragraphs in the same order as {@link Word} evaluates.
+     * 
+     * @param document
+     * @return
+     */
+    private static List<Instruction> scan(XWPFDocument document) {
+        List<Instruction> instructions = new ArrayList();
+
+        for (XWPFParagraph para : document.getParagraphs()) {
+            instructions.add(scan(para));
+        }
+
+        for (XWPFTable table : document.getTables()) {
+            scan(table, instructions);
+        }
+
+        for (XWPFHeader header : document.getHeaderList()) {
+            for (XWPFParagraph para : header.getParagraphs()) {
+                instructions.add(scan(para));
+            }
+        }
+
+        for (XWPFFooter footer : document.getFooterList()) {
+            for (XWPFParagraph para : footer.getParagraphs()) {
+                instructions.add(scan(para));
+            }
+        }
+        return instructions;
+    }
+
+    /**
+     * Scan all paragraphs in the table.
+     * 
+     * @param table
+     * @param instructions
+     */
+    private static void scan(XWPFTable table, List<Instruction> instructions) {
+        for (XWPFTableRow row : table.getRows()) {
+            for (XWPFTableCell cell : row.getTableCells()) {
+                for (XWPFParagraph para : cell.getParagraphs()) {
+                    instructions.add(scan(para));
+                }
+
+                for (XWPFTable innerTable : cell.getTables()) {
+                    scan(innerTable, instructions);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scan the paragraph.
+     * 
+     * @param paragraph
+     * @return
+     */
+    private static Instruction scan(XWPFParagraph paragraph) {
+        List<XWPFRun> runs = paragraph.getRuns();
+        CTP context = paragraph.getCTP();
+
+        boolean evaluable = context.sizeOfCommentRangeStartArray() != 0 || context.sizeOfCommentRangeEndArray() != 0;
+
+        for (int i = 0; !evaluable && i < runs.size(); i++) {
+            String text = runs.get(i).getText(0);
+
+            // The run which has no text will be written an empty text, and the special characters
+            // will be processed as variable, ruby or line break.
+            evaluable = text == null || text.chars().anyMatch(c -> c == '{' || c == '}' || c == '｛' || c == '\n');
+        }
+        return new Instruction(runs.size(), evaluable);
+    }
+
+    /**
+     * Read the zipped package and rewrite it without compression.
+     * 
+     * @param input
+     * @return
+     */
+    private static byte[] store(InputStream input) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ZipInputStream in = new ZipInputStream(input); ZipOutputStream out = new ZipOutputStream(bytes)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                byte[] data = in.readAllBytes();
+                CRC32 crc = new CRC32();
+                crc.update(data);
+
+                ZipEntry stored = new ZipEntry(entry.getName());
+                stored.setMethod(ZipEntry.STORED);
+                stored.setSize(data.length);
+                stored.setCompressedSize(data.length);
+                stored.setCrc(crc.getValue());
+
+                out.putNextEntry(stored);
+                out.write(data);
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The pre-scanned paragraph.
+     */
+    private record Instruction(int runs, boolean evaluable) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.word;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+/**
+ * The options of zip packaging to save {@link Word} document.
+ */
+public class SaveOptions {
+
+    /** The default options. */
+    private static final SaveOptions DEFAULT = new SaveOptions(Deflater.DEFAULT_COMPRESSION, false);
+
+    /** The store-only options. */
+    private static final SaveOptions STORE_ONLY = new SaveOptions(Deflater.NO_COMPRESSION, false);
+
+    /** The deflate level. */
+    private final int level;
+
+    /** The zip64 mode. */
+    private final boolean zip64;
+
+    /**
+     * @param level
+     * @param zip64
+     */
+    private SaveOptions(int level, boolean zip64) {
+        this.level = level;
+        this.zip64 = zip64;
+    }
+
+    /**
+     * Get the default options which is same as POI.
+     * 
+     * @return
+     */
+    public static SaveOptions defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * Get the options which stores all entries without compression. It is the fastest way to write
+     * the document which is passed to another application immediately (e.g. conversion by
+     * LibreOffice).
+     * 
+     * @return
+     */
+    public static SaveOptions storeOnly() {
+        return STORE_ONLY;
+    }
+
+    /**
+     * Configure the deflate level.
+     * 
+     * @param level 0 (no compression, the entries are stored) to 9 (best compression), or -1 for
+     *            default.
+     * @return New options.
+     */
+    public SaveOptions level(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || Deflater.BEST_COMPRESSION < level) {
+            throw new IllegalArgumentException("Deflate level must be between -1 and 9. [" + level + "]");
+        }
+        return new SaveOptions(level, zip64);
+    }
+
+    /**
+     * Configure the zip64 extension.
+     * 
+     * @param always True to write the zip64 extension always, false to write it only if needed.
+     * @return New options.
+     */
+    public SaveOptions zip64(boolean always) {
+        return new SaveOptions(level, always);
+    }
+
+    /**
+     * Open the zip stream for POI. POI writes the package to the given stream directly when it is
+     * {@link ZipArchiveOutputStream}, so the entries are written with these options and the
+     * document is compressed only once.
+     * 
+     * @param output
+     * @return
+     */
+    ZipArchiveOutputStream open(OutputStream output) {
+        ZipArchiveOutputStream zip = level == Deflater.NO_COMPRESSION ? new Storing(new Unclosable(output))
+                : new ZipArchiveOutputStream(new Unclosable(output));
+        zip.setLevel(level);
+        zip.setUseZip64(zip64 ? Zip64Mode.Always : Zip64Mode.AsNeeded);
+        return zip;
+    }
+
+    /**
+     * The zip stream which writes all entries by STORED method. The stored entry requires its size
+     * and CRC in the local header and the stream is not seekable, so each entry is buffered until
+     * it is closed.
+     */
+    private static class Storing extends ZipArchiveOutputStream {
+
+        /** The buffer of the current entry. */
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        /** The current entry. */
+        private ZipArchiveEntry entry;
+
+        /**
+         * @param out
+         */
+        private Storing(OutputStream out) {
+            super(out);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void putArchiveEntry(ZipArchiveEntry entry) throws IOException {
+            this.entry = entry;
+            buffer.reset();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (entry == null) {
+                super.write(b, off, len);
+            } else {
+                buffer.write(b, off, len);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void closeArchiveEntry() throws IOException {
+            byte[] data = buffer.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(data);
+
+            entry.setMethod(ZipArchiveEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCompressedSize(data.length);
+            entry.setCrc(crc.getValue());
+
+            super.putArchiveEntry(entry);
+            super.write(data, 0, data.length);
+            super.closeArchiveEntry();
+            entry = null;
+        }
+    }
+
+    /**
+     * The output stream which is not closed by POI, the caller has the ownership.
+     */
+    private static class Unclosable extends FilterOutputStream {
+
+        /**
+         * @param out
+         */
+        private Unclosable(OutputStream out) {
+            super(out);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
\ No newline at end of file
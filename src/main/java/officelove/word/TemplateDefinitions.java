@@ -13,14 +13,27 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import kiss.Disposable;
 import kiss.I;
 import kiss.Managed;
 import kiss.Model;
 import kiss.Signal;
 import kiss.Singleton;
-import officelove.LibreOffice;
+import officelove.PrintSpooler;
 import psychopath.Directory;
 import psychopath.File;
 import psychopath.Locator;
@@ -28,6 +41,21 @@ import psychopath.Locator;
 @Managed(Singleton.class)
 public abstract class TemplateDefinitions<T> {
 
+    /** The maximum number of cached templates. */
+    private static final int CACHE_SIZE = 64;
+
+    /** The maximum total bytes of cached templates. */
+    private static final long CACHE_WEIGHT = 64 * 1024 * 1024;
+
+    /** The compiled templates by path in access order. */
+    private final Map<String, Compiled> compiled = new LinkedHashMap(16, 0.75f, true);
+
+    /** The maximum number of documents which are published at the same time. */
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /** The shared print queue. */
+    private static final PrintSpooler SPOOLER = new PrintSpooler();
+
     /**
      * Locate template directory.
      * 
@@ -50,7 +78,9 @@ public abstract class TemplateDefinitions<T> {
     }
 
     /**
-     * Print the evaluated document.
+     * Print the evaluated document. The document is evaluated immediately, but printing is queued
+     * on {@link #spooler()} and doesn't block the caller. The failure of printing is reported by
+     * {@link I#error(Object)}.
      */
     protected void printDoc(Templatable templatable, String printer, List context, T data) {
         File temp = Locator.temporaryFile();
@@ -59,7 +89,24 @@ public abstract class TemplateDefinitions<T> {
         evaluate(templatable, context).save(temp);
 
         // print
-        LibreOffice.print(temp, printer);
+        spooler().print(temp, printer).whenComplete((file, error) -> {
+            temp.delete();
+
+            if (error != null) {
+                I.error("Failed to print " + templatable.name() + " on " + (printer == null ? "the default printer" : printer) + ".");
+                I.error(error);
+            }
+        });
+    }
+
+    /**
+     * Get the print queue. All definitions share the same queue by default, so the documents for
+     * the same printer are coalesced into one print job.
+     * 
+     * @return
+     */
+    public PrintSpooler spooler() {
+        return SPOOLER;
     }
 
     /**
@@ -71,6 +118,77 @@ public abstract class TemplateDefinitions<T> {
         evaluate(templatable, context).save(file);
     }
 
+    /**
+     * Publish the evaluated documents in parallel.
+     * 
+     * @param templatable
+     * @param contexts The varying contexts.
+     * @param naming The output file for each context.
+     * @param builder The full context list for each context.
+     * @return The result of each publication in completion order. It completes after the contexts
+     *         are terminated and all publications are finished.
+     */
+    protected <C> Signal<Publication<C>> publishAllDoc(Templatable templatable, Signal<C> contexts, Function<C, File> naming, Function<C, List> builder) {
+        return new Signal<>((observer, disposer) -> {
+            Semaphore permits = new Semaphore(PARALLELISM);
+            CountDownLatch terminated = new CountDownLatch(1);
+            AtomicReference<Throwable> failure = new AtomicReference();
+
+            // the executor waits for all running publications on close
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                Disposable source = contexts.to(context -> {
+                    if (disposer.isDisposed()) {
+                        return;
+                    }
+
+                    permits.acquireUninterruptibly();
+                    executor.submit(() -> {
+                        Publication<C> publication;
+                        File file = null;
+
+                        try {
+                            file = naming.apply(context);
+                            publishDoc(templatable, file, builder.apply(context), templatable.data);
+                            publication = new Publication(context, file, null);
+                        } catch (Throwable e) {
+                            publication = new Publication(context, file, e);
+                        } finally {
+                            permits.release();
+                        }
+
+                        synchronized (observer) {
+                            if (!disposer.isDisposed()) {
+                                observer.accept(publication);
+                            }
+                        }
+                    });
+                }, e -> {
+                    failure.compareAndSet(null, e);
+                    terminated.countDown();
+                }, terminated::countDown);
+
+                // the contexts may be emitted asynchronously, so wait for their termination
+                while (!terminated.await(100, TimeUnit.MILLISECONDS)) {
+                    if (disposer.isDisposed()) {
+                        source.dispose();
+                        break;
+                    }
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+
+            if (!disposer.isDisposed()) {
+                if (failure.get() != null) {
+                    observer.error(failure.get());
+                } else {
+                    observer.complete();
+                }
+            }
+            return disposer;
+        });
+    }
+
     /**
      * Evaluate the template and create document.
      * 
@@ -80,7 +198,7 @@ public abstract class TemplateDefinitions<T> {
      */
     protected final Word evaluate(Templatable templatable, List context) {
         Mergeable mergeable = checkMergeable(context);
-        Word word = new Word(templatable.file());
+        Word word = compile(templatable).create();
         if (mergeable == null) {
             word.evaluate(context);
         } else {
@@ -89,6 +207,63 @@ public abstract class TemplateDefinitions<T> {
         return word;
     }
 
+    /**
+     * Compile the template. The compiled template is cached until the template file is modified.
+     * The concurrent calls for the same template share one compilation.
+     * 
+     * @param templatable
+     * @return
+     */
+    protected final CompiledTemplate compile(Templatable templatable) {
+        File file = templatable.file();
+        String path = file.absolutize().toString();
+        long modified = file.asJavaFile().lastModified();
+
+        Compiled cached;
+        boolean owner = false;
+        synchronized (compiled) {
+            cached = compiled.get(path);
+            if (cached == null || cached.modified != modified) {
+                cached = new Compiled(new CompletableFuture(), modified);
+                compiled.put(path, cached);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            // compile outside of the lock, the other templates are not blocked
+            try {
+                cached.template.complete(new CompiledTemplate(file));
+            } catch (RuntimeException | Error e) {
+                synchronized (compiled) {
+                    compiled.remove(path, cached);
+                }
+                cached.template.completeExceptionally(e);
+                throw e;
+            }
+
+            synchronized (compiled) {
+                long weight = 0;
+                for (Compiled entry : compiled.values()) {
+                    weight += entry.weight();
+                }
+
+                // evict the least recently used templates
+                Iterator<Compiled> iterator = compiled.values().iterator();
+                while (1 < compiled.size() && (CACHE_SIZE < compiled.size() || CACHE_WEIGHT < weight)) {
+                    weight -= iterator.next().weight();
+                    iterator.remove();
+                }
+            }
+        }
+
+        try {
+            return cached.template.join();
+        } catch (CompletionException e) {
+            throw I.quiet(e.getCause());
+        }
+    }
+
     private Mergeable checkMergeable(List context) {
         if (context.isEmpty()) {
             return null;
@@ -112,6 +287,40 @@ public abstract class TemplateDefinitions<T> {
         return null;
     }
 
+    /**
+     * The result of publication.
+     * 
+     * @param context The varying context.
+     * @param file The published file.
+     * @param error The error or null when the publication has succeeded.
+     */
+    public record Publication<C>(C context, File file, Throwable error) {
+
+        /**
+         * Check whether the publication has succeeded or not.
+         * 
+         * @return
+         */
+        public boolean isSucceeded() {
+            return error == null;
+        }
+    }
+
+    /**
+     * The cached template which may be still in compilation.
+     */
+    private record Compiled(CompletableFuture<CompiledTemplate> template, long modified) {
+
+        /**
+         * Compute the bytes of the compiled template.
+         * 
+         * @return The bytes or zero while compiling.
+         */
+        private long weight() {
+            return template.isDone() && !template.isCompletedExceptionally() ? template.join().weight() : 0;
+        }
+    }
+
     /**
      * Template API.
      */
@@ -307,6 +516,18 @@ public abstract class TemplateDefinitions<T> {
         public void publish(File file, C1 context1) {
             publishDoc(this, file, I.list(context1), data);
         }
+
+        /**
+         * Publish the evaluated documents for each context in parallel. The template is compiled
+         * only once.
+         * 
+         * @param contexts The varying contexts.
+         * @param naming The output file for each context.
+         * @return The result of each publication in completion order.
+         */
+        public Signal<Publication<C1>> publishAll(Signal<C1> contexts, Function<C1, File> naming) {
+            return publishAllDoc(this, contexts, naming, context1 -> I.list(context1));
+        }
     }
 
     /**
@@ -350,6 +571,19 @@ public abstract class TemplateDefinitions<T> {
         public void publish(File file, C1 context1, C2 context2) {
             publishDoc(this, file, I.list(context1, context2), data);
         }
+
+        /**
+         * Publish the evaluated documents for each context in parallel. The template is compiled
+         * only once.
+         * 
+         * @param contexts The varying contexts.
+         * @param naming The output file for each context.
+         * @param context2 The shared context.
+         * @return The result of each publication in completion order.
+         */
+        public Signal<Publication<C1>> publishAll(Signal<C1> contexts, Function<C1, File> naming, C2 context2) {
+            return publishAllDoc(this, contexts, naming, context1 -> I.list(context1, context2));
+        }
     }
 
     /**
@@ -393,6 +627,20 @@ public abstract class TemplateDefinitions<T> {
         public void publish(File file, C1 context1, C2 context2, C3 context3) {
             publishDoc(this, file, I.list(context1, context2, context3), data);
         }
+
+        /**
+         * Publish the evaluated documents for each context in parallel. The template is compiled
+         * only once.
+         * 
+         * @param contexts The varying contexts.
+         * @param naming The output file for each context.
+         * @param context2 The shared context.
+         * @param context3 The shared context.
+         * @return The result of each publication in completion order.
+         */
+        public Signal<Publication<C1>> publishAll(Signal<C1> contexts, Function<C1, File> naming, C2 context2, C3 context3) {
+            return publishAllDoc(this, contexts, naming, context1 -> I.list(context1, context2, context3));
+        }
     }
 
     /**
@@ -436,6 +684,21 @@ public abstract class TemplateDefinitions<T> {
         public void publish(File file, C1 context1, C2 context2, C3 context3, C4 context4) {
             publishDoc(this, file, I.list(context1, context2, context3, context4), data);
         }
+
+        /**
+         * Publish the evaluated documents for each context in parallel. The template is compiled
+         * only once.
+         * 
+         * @param contexts The varying contexts.
+         * @param naming The output file for each context.
+         * @param context2 The shared context.
+         * @param context3 The shared context.
+         * @param context4 The shared context.
+         * @return The result of each publication in completion order.
+         */
+        public Signal<Publication<C1>> publishAll(Signal<C1> contexts, Function<C1, File> naming, C2 context2, C3 context3, C4 context4) {
+            return publishAllDoc(this, contexts, naming, context1 -> I.list(context1, context2, context3, context4));
+        }
     }
 
     /**
@@ -479,5 +742,21 @@ public abstract class TemplateDefinitions<T> {
         public void publish(File file, C1 context1, C2 context2, C3 context3, C4 context4, C5 context5) {
             publishDoc(this, file, I.list(context1, context2, context3, context4, context5), data);
         }
+
+        /**
+         * Publish the evaluated documents for each context in parallel. The template is compiled
+         * only once.
+         * 
+         * @param contexts The varying contexts.
+         * @param naming The output file for each context.
+         * @param context2 The shared context.
+         * @param context3 The shared context.
+         * @param context4 The shared context.
+         * @param context5 The shared context.
+         * @return The result of each publication in completion order.
+         */
+        public Signal<Publication<C1>> publishAll(Signal<C1> contexts, Function<C1, File> naming, C2 context2, C3 context3, C4 context4, C5 context5) {
+            return publishAllDoc(this, contexts, naming, context1 -> I.list(context1, context2, context3, context4, context5));
+        }
     }
 }
\ No newline at end of file
@@ -10,18 +10,25 @@
 package officelove.word;
 
 import java.awt.Desktop;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigInteger;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.poi.xwpf.usermodel.BodyType;
 import org.apache.poi.xwpf.usermodel.IBodyElement;
@@ -66,6 +73,12 @@ public class Word {
     /** The template file name. */
     private final String name;
 
+    /** The template source. */
+    private final WiseSupplier<InputStream> source;
+
+    /** The compiled template. */
+    private CompiledTemplate template;
+
     /** The context. */
     private final CalculationContext context = new CalculationContext();
 
@@ -91,7 +104,8 @@ public class Word {
     private Word(String name) {
         try {
             this.name = name;
-            this.calculated = new XWPFDocument(Locator.file(name).newInputStream());
+            this.source = () -> Locator.file(name).newInputStream();
+            this.calculated = new WordDocument(source.get());
         } catch (IOException e) {
             throw I.quiet(e);
         }
@@ -119,6 +133,16 @@ public class Word {
         this(URLDecoder.decode(file.toString(), StandardCharsets.UTF_8), file::openStream);
     }
 
+    /**
+     * Create document from the compiled template.
+     * 
+     * @param template
+     */
+    Word(CompiledTemplate template) {
+        this(template.name, template::open);
+        this.template = template;
+    }
+
     /**
      * Create template for word.
      * 
@@ -128,7 +152,8 @@ public class Word {
     private Word(String name, WiseSupplier<InputStream> input) {
         try {
             this.name = name;
-            this.calculated = new XWPFDocument(input.get());
+            this.source = input;
+            this.calculated = new WordDocument(input.get());
 
             CTTextDirection direction = calculated.getDocument().getBody().getSectPr().getTextDirection();
 
@@ -162,6 +187,19 @@ public class Word {
         }
     }
 
+    /**
+     * Compile the template of this document, the template is parsed only once and can be evaluated
+     * many times.
+     * 
+     * @return The compiled template.
+     */
+    public synchronized CompiledTemplate compile() {
+        if (template == null) {
+            template = new CompiledTemplate(name, source);
+        }
+        return template;
+    }
+
     /**
      * Collect paragraphs.
      * 
@@ -317,14 +355,69 @@ public class Word {
             return evaluate(models.get(0), additions);
         }
 
+        CompiledTemplate compiled = compile();
         evaluate(models.get(0), additions);
 
         for (int i = 1; i < models.size(); i++) {
-            merge(new Word(name).evaluate(models.get(i), additions));
+            merge(compiled.evaluate(models.get(i), additions));
         }
         return this;
     }
 
+    /**
+     * Calculate variables by the given model list and merge them all. Each model is evaluated on
+     * its own document in parallel and the results are merged in the order of the given list.
+     * 
+     * @param models
+     * @return
+     */
+    public Word evaluateAndMergeInParallel(List models, Object... additions) {
+        if (models == null || models.size() <= 1) {
+            return evaluateAndMerge(models, additions);
+        }
+
+        CompiledTemplate compiled = compile();
+
+        // The number of documents which are evaluated ahead, it limits the memory usage.
+        int window = Runtime.getRuntime().availableProcessors() * 2;
+        Deque<CompletableFuture<Word>> evaluating = new ArrayDeque();
+        int next = 1;
+
+        try {
+            for (; next < models.size() && evaluating.size() < window; next++) {
+                evaluating.add(evaluateAsync(compiled, models.get(next), additions));
+            }
+            evaluate(models.get(0), additions);
+
+            while (!evaluating.isEmpty()) {
+                merge(evaluating.poll().join());
+
+                if (next < models.size()) {
+                    evaluating.add(evaluateAsync(compiled, models.get(next++), additions));
+                }
+            }
+            return this;
+        } catch (CompletionException e) {
+            throw I.quiet(e.getCause());
+        } finally {
+            for (CompletableFuture<Word> future : evaluating) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Evaluate the template in background.
+     * 
+     * @param compiled
+     * @param model
+     * @param additions
+     * @return
+     */
+    private static CompletableFuture<Word> evaluateAsync(CompiledTemplate compiled, Object model, Object... additions) {
+        return CompletableFuture.supplyAsync(() -> compiled.evaluate(model, additions));
+    }
+
     /**
      * Merge the specified {@link Word} to this document.
      * 
@@ -334,6 +427,12 @@ public class Word {
     public Word merge(Word after) {
         if (calculated.getBodyElements().isEmpty()) {
             calculated = after.calculated;
+        } else if (calculated instanceof WordDocument document) {
+            IBodyElement first = document.append(after.calculated);
+
+            if (first instanceof XWPFParagraph para) {
+                breakPage(para, after.calculated);
+            }
         } else {
             merge(after.calculated.getBodyElements());
         }
@@ -358,16 +457,7 @@ public class Word {
                 cursor = cursorAfter(created);
 
                 if (i == 0) {
-                    created.setPageBreak(true);
-
-                    CTSectPr inSec = WordHeleper.section(para.getDocument());
-                    CTSectPr outSec = WordHeleper.section(created.getDocument());
-                    CTPageMar inMargin = inSec.getPgMar();
-                    CTPageMar outMargin = outSec.addNewPgMar();
-                    outMargin.setBottom(inMargin.getBottom());
-                    outMargin.setLeft(inMargin.getLeft());
-                    outMargin.setRight(inMargin.getRight());
-                    outMargin.setTop(inMargin.getTop());
+                    breakPage(created, para.getDocument());
 
                     // List<XWPFFooter> inFooter = para.getDocument().getFooterList();
                     // List<XWPFFooter> outFooter = created.getDocument().getFooterList();
@@ -384,6 +474,25 @@ public class Word {
         }
     }
 
+    /**
+     * Start the merged document from the new page and apply its margin.
+     * 
+     * @param created The first paragraph of the merged document.
+     * @param source The merged document.
+     */
+    private void breakPage(XWPFParagraph created, XWPFDocument source) {
+        created.setPageBreak(true);
+
+        CTSectPr inSec = WordHeleper.section(source);
+        CTSectPr outSec = WordHeleper.section(created.getDocument());
+        CTPageMar inMargin = inSec.getPgMar();
+        CTPageMar outMargin = outSec.addNewPgMar();
+        outMargin.setBottom(inMargin.getBottom());
+        outMargin.setLeft(inMargin.getLeft());
+        outMargin.setRight(inMargin.getRight());
+        outMargin.setTop(inMargin.getTop());
+    }
+
     /**
      * Print document with the given variables.
      * 
@@ -433,15 +542,29 @@ public class Word {
      * @return Chainable API.
      */
     public Word save(File output, boolean overwrite) {
+        return save(output, overwrite, SaveOptions.defaults());
+    }
+
+    /**
+     * Save this document to the specified {@link Path}.
+     * 
+     * @param output
+     * @param overwrite
+     * @param options The zip packaging options, it is ignored for pdf.
+     * @return Chainable API.
+     */
+    public Word save(File output, boolean overwrite, SaveOptions options) {
         if (overwrite == true || output.isAbsent()) {
             String extension = output.extension();
             if (extension.equals("pdf")) {
-                File input = Locator.temporaryFile();
-                save(input);
-                LibreOffice.convert(input, output);
+                try (InputStream pdf = pdf(); OutputStream stream = output.newOutputStream()) {
+                    pdf.transferTo(stream);
+                } catch (IOException e) {
+                    throw I.quiet(e);
+                }
             } else {
                 try (OutputStream stream = output.newOutputStream()) {
-                    calculated.write(stream);
+                    save(stream, options);
                 } catch (IOException e) {
                     throw I.quiet(e);
                 }
@@ -451,6 +574,101 @@ public class Word {
         return this;
     }
 
+    /**
+     * Write this document to the specified stream. The stream is not closed.
+     * 
+     * @param output
+     * @return Chainable API.
+     */
+    public Word save(OutputStream output) {
+        return save(output, SaveOptions.defaults());
+    }
+
+    /**
+     * Write this document to the specified stream. The stream is not closed.
+     * 
+     * @param output
+     * @param options The zip packaging options.
+     * @return Chainable API.
+     */
+    public Word save(OutputStream output, SaveOptions options) {
+        try {
+            calculated.write(options.open(output));
+            output.flush();
+        } catch (IOException e) {
+            throw I.quiet(e);
+        }
+        return this;
+    }
+
+    /**
+     * Write this document to the specified channel. The channel is not closed.
+     * 
+     * @param output
+     * @param options The zip packaging options.
+     * @return Chainable API.
+     */
+    public Word save(WritableByteChannel output, SaveOptions options) {
+        return save(Channels.newOutputStream(output), options);
+    }
+
+    /**
+     * Convert this document to pdf in memory. The returned stream must be closed.
+     * 
+     * @return The pdf data.
+     */
+    public InputStream pdf() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        save(bytes, SaveOptions.storeOnly());
+
+        return LibreOffice.convert(bytes.toByteArray(), "docx", "pdf");
+    }
+
+    /**
+     * Write this document to the temporary file for conversion.
+     * 
+     * @return
+     */
+    private File temporary() {
+        File input = Locator.temporaryFile();
+        save(input, true, SaveOptions.storeOnly());
+        return input;
+    }
+
+    /**
+     * Save this document to the specified {@link Path} asynchronously.
+     * 
+     * @param output
+     * @return The saved file.
+     */
+    public CompletableFuture<File> saveAsync(File output) {
+        return saveAsync(output, true);
+    }
+
+    /**
+     * Save this document to the specified {@link Path} asynchronously. The document itself is
+     * written on the caller thread, only the conversion to pdf runs in background. Cancelling the
+     * returned future kills the office process.
+     * 
+     * @param output
+     * @return The saved file.
+     */
+    public CompletableFuture<File> saveAsync(File output, boolean overwrite) {
+        if (overwrite == true || output.isAbsent()) {
+            if (output.extension().equals("pdf")) {
+                File input = temporary();
+                CompletableFuture<File> future = LibreOffice.convertAsync(input, output);
+
+                // the returned future is kept as it is to propagate the cancellation
+                future.whenComplete((file, error) -> input.delete());
+                return future;
+            } else {
+                save(output, overwrite);
+            }
+        }
+        return CompletableFuture.completedFuture(output);
+    }
+
     /**
      * Replace variable text.
      * 
@@ -458,6 +676,8 @@ public class Word {
      * @param object
      */
     private void replace(XWPFDocument doc) {
+        context.ordinal = 0;
+
         // for paragraph
         for (XWPFParagraph para : copy(doc.getParagraphs())) {
             replace(para);
@@ -513,6 +733,13 @@ public class Word {
      * @param object
      */
     private void replace(XWPFParagraph para) {
+        int ordinal = context.ordinal++;
+
+        // skip the paragraph which has no expression
+        if (template != null && context.block instanceof CalculationContext.Normal && template.isStatic(ordinal, para)) {
+            return;
+        }
+
         context.isStartConditinalBlock(para);
         context.block.process(para);
         context.isEndConditionalBlock(para);
@@ -933,6 +1160,9 @@ public class Word {
         /** The current processing cell. */
         private XWPFTableCell cell;
 
+        /** The traversal order of the current processing paragraph. */
+        private int ordinal;
+
         /**
          * @param paragraph
          */
@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.word;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.poi.ooxml.POIXMLDocumentPart;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackagePartName;
+import org.apache.poi.openxml4j.opc.PackageRelationship;
+import org.apache.poi.openxml4j.opc.PackagingURIHelper;
+import org.apache.poi.openxml4j.opc.TargetMode;
+import org.apache.poi.xwpf.usermodel.IBodyElement;
+import org.apache.poi.xwpf.usermodel.XWPFAbstractNum;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFNum;
+import org.apache.poi.xwpf.usermodel.XWPFNumbering;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFPictureData;
+import org.apache.poi.xwpf.usermodel.XWPFStyle;
+import org.apache.poi.xwpf.usermodel.XWPFStyles;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTAbstractNum;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTBody;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTDecimalNumber;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTP;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTString;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTTbl;
+
+import kiss.I;
+
+/**
+ * The document which can append the body of other document by copying its XML directly.
+ * <p>
+ * Each body element is copied as a whole, and the relationship ids (pictures, hyperlinks and the
+ * other related parts like charts, embedded objects and section headers), numbering ids and styles
+ * which are referred from the copied XML are resolved in one pass. So the cost of merge is
+ * proportional to the size of the appended document.
+ * </p>
+ */
+class WordDocument extends XWPFDocument {
+
+    /** The namespace of relationship. */
+    private static final String RELATIONSHIP = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    /** The namespace of wordprocessingml. */
+    private static final String MAIN = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    /**
+     * @param input
+     */
+    WordDocument(InputStream input) throws IOException {
+        super(input);
+    }
+
+    /**
+     * Append all body elements of the specified document.
+     * 
+     * @param source
+     * @return The first appended element or null.
+     */
+    IBodyElement append(XWPFDocument source) {
+        CTBody body = getDocument().getBody();
+        Resolver resolver = new Resolver(source);
+        IBodyElement first = null;
+
+        for (IBodyElement element : source.getBodyElements()) {
+            IBodyElement created = null;
+
+            if (element instanceof XWPFParagraph para) {
+                CTP p = body.addNewP();
+                p.set(para.getCTP());
+                resolver.resolve(p);
+
+                XWPFParagraph paragraph = new XWPFParagraph(p, this);
+                paragraphs.add(paragraph);
+                created = paragraph;
+            } else if (element instanceof XWPFTable table) {
+                CTTbl tbl = body.addNewTbl();
+                tbl.set(table.getCTTbl());
+                resolver.resolve(tbl);
+
+                XWPFTable copied = new XWPFTable(tbl, this);
+                tables.add(copied);
+                created = copied;
+            }
+
+            if (created != null) {
+                bodyElements.add(created);
+
+                if (first == null) {
+                    first = created;
+                }
+            }
+        }
+        return first;
+    }
+
+    /**
+     * The resolver of references in the copied XML.
+     */
+    private class Resolver {
+
+        /** The source document. */
+        private final XWPFDocument source;
+
+        /** The resolved relationship ids. */
+        private final Map<String, String> relations = new HashMap();
+
+        /** The resolved numbering ids. */
+        private final Map<String, BigInteger> numbers = new HashMap();
+
+        /** The copied parts by the source part name. */
+        private final Map<PackagePartName, PackagePart> parts = new HashMap();
+
+        /**
+         * @param source
+         */
+        private Resolver(XWPFDocument source) {
+            this.source = source;
+        }
+
+        /**
+         * Resolve all references in the specified XML.
+         * 
+         * @param xml
+         */
+        private void resolve(XmlObject xml) {
+            try (XmlCursor cursor = xml.newCursor(); XmlCursor end = xml.newCursor()) {
+                end.toEndToken();
+
+                while (!cursor.toNextToken().isNone() && cursor.isLeftOf(end)) {
+                    if (cursor.isAttr()) {
+                        if (RELATIONSHIP.equals(cursor.getName().getNamespaceURI())) {
+                            cursor.setTextValue(relations.computeIfAbsent(cursor.getTextValue(), this::relation));
+                        }
+                    } else if (cursor.isStart() && MAIN.equals(cursor.getName().getNamespaceURI())) {
+                        switch (cursor.getName().getLocalPart()) {
+                        case "pStyle":
+                        case "rStyle":
+                        case "tblStyle":
+                            style(((CTString) cursor.getObject()).getVal());
+                            break;
+
+                        case "numId":
+                            CTDecimalNumber number = (CTDecimalNumber) cursor.getObject();
+                            number.setVal(numbers.computeIfAbsent(number.getVal().toString(), id -> number(number.getVal())));
+                            break;
+
+                        default:
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Resolve the relationship id.
+         * 
+         * @param id
+         * @return
+         */
+        private String relation(String id) {
+            try {
+                POIXMLDocumentPart part = source.getRelationById(id);
+
+                if (part instanceof XWPFPictureData picture) {
+                    return WordHeleper.picture(WordDocument.this, picture);
+                }
+
+                PackageRelationship relationship = source.getPackagePart().getRelationship(id);
+                if (relationship == null) {
+                    throw new IllegalStateException("Relationship [" + id + "] is not found in the source document.");
+                }
+
+                if (relationship.getTargetMode() == TargetMode.EXTERNAL) {
+                    return getPackagePart().addExternalRelationship(relationship.getTargetURI().toString(), relationship
+                            .getRelationshipType()).getId();
+                }
+
+                // chart, embedded object, header, footer and so on
+                return getPackagePart().addRelationship(copy(relationship).getPartName(), TargetMode.INTERNAL, relationship
+                        .getRelationshipType()).getId();
+            } catch (Exception e) {
+                throw I.quiet(e);
+            }
+        }
+
+        /**
+         * Copy the related part and its related parts recursively. The relationship ids in the
+         * copied part are kept as they are, so its XML is copied without any modification.
+         * 
+         * @param relationship The internal relationship in the source document.
+         * @return The copied part.
+         */
+        private PackagePart copy(PackageRelationship relationship) throws Exception {
+            PackagePartName name = PackagingURIHelper.createPartName(PackagingURIHelper
+                    .resolvePartUri(relationship.getSourceURI(), relationship.getTargetURI()));
+
+            PackagePart copied = parts.get(name);
+            if (copied != null) {
+                return copied;
+            }
+
+            PackagePart part = source.getPackage().getPart(name);
+            if (part == null) {
+                throw new IllegalStateException("Part [" + name + "] is not found in the source document.");
+            }
+
+            copied = getPackage().createPart(unique(name), part.getContentType());
+            parts.put(name, copied);
+
+            try (InputStream input = part.getInputStream(); OutputStream output = copied.getOutputStream()) {
+                input.transferTo(output);
+            }
+
+            for (PackageRelationship child : part.getRelationships()) {
+                if (child.getTargetMode() == TargetMode.EXTERNAL) {
+                    copied.addExternalRelationship(child.getTargetURI().toString(), child.getRelationshipType(), child.getId());
+                } else {
+                    copied.addRelationship(copy(child).getPartName(), TargetMode.INTERNAL, child.getRelationshipType(), child
+                            .getId());
+                }
+            }
+            return copied;
+        }
+
+        /**
+         * Compute the part name which is not used in this document. (e.g. "/word/charts/chart2.xml")
+         * 
+         * @param name The source part name.
+         * @return
+         */
+        private PackagePartName unique(PackagePartName name) throws Exception {
+            String path = name.getName();
+            int dot = path.lastIndexOf('.');
+            int end = dot <= path.lastIndexOf('/') ? path.length() : dot;
+            int start = end;
+            while (path.lastIndexOf('/') < start - 1 && Character.isDigit(path.charAt(start - 1))) {
+                start--;
+            }
+
+            OPCPackage pkg = getPackage();
+            for (int i = 1;; i++) {
+                PackagePartName candidate = PackagingURIHelper.createPartName(path.substring(0, start) + i + path.substring(end));
+                if (!pkg.containPart(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+
+        /**
+         * Copy the style which is not defined in this document.
+         * 
+         * @param id
+         */
+        private void style(String id) {
+            XWPFStyles in = source.getStyles();
+            if (in == null || id == null) {
+                return;
+            }
+
+            XWPFStyles out = getStyles() == null ? createStyles() : getStyles();
+            XWPFStyle style = in.getStyle(id);
+
+            if (style != null && !out.styleExist(id)) {
+                out.addStyle(style);
+
+                // copy the parent style too
+                style(style.getBasisStyleID());
+            }
+        }
+
+        /**
+         * Copy the numbering which is not defined in this document.
+         * 
+         * @param id
+         * @return
+         */
+        private BigInteger number(BigInteger id) {
+            XWPFNumbering in = source.getNumbering();
+            XWPFNumbering out = getNumbering();
+
+            if (in == null || (out != null && out.numExist(id))) {
+                return id;
+            }
+
+            XWPFNum num = in.getNum(id);
+            if (num == null) {
+                return id;
+            }
+
+            XWPFAbstractNum abstractNum = in.getAbstractNum(num.getCTNum().getAbstractNumId().getVal());
+            if (abstractNum == null) {
+                return id;
+            }
+
+            if (out == null) {
+                out = createNumbering();
+            }
+            // The abstract numbering is copied because POI rewrites its id on addition.
+            return out.addNum(out.addAbstractNum(new XWPFAbstractNum((CTAbstractNum) abstractNum.getCTAbstractNum().copy(), out)));
+        }
+    }
+}
\ No newline at end of file
@@ -9,8 +9,14 @@
  */
 package officelove.word;
 
-import java.io.ByteArrayInputStream;
 import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.UnaryOperator;
 
 import javax.xml.namespace.QName;
@@ -59,6 +65,9 @@ import kiss.Variable;
 
 public class WordHeleper {
 
+    /** The registered pictures by checksum for each document. */
+    private static final Map<XWPFDocument, Map<Long, List<XWPFPictureData>>> pictures = Collections.synchronizedMap(new WeakHashMap());
+
     /**
      * 
      */
@@ -290,20 +299,45 @@ public class WordHeleper {
 
         // copy image
         for (XWPFPicture inPicture : in.getEmbeddedPictures()) {
-            try {
-                XWPFPictureData inData = inPicture.getPictureData();
-                String outId = out.getDocument().addPictureData(new ByteArrayInputStream(inData.getData()), inData.getPictureType());
+            String outId = picture(out.getDocument(), inPicture.getPictureData());
 
-                select(CTBlip.class, outCTR).to(blip -> blip.setEmbed(outId));
-            } catch (Exception e) {
-                throw I.quiet(e);
-            }
+            select(CTBlip.class, outCTR).to(blip -> blip.setEmbed(outId));
         }
 
         // copy text
         write(out, converter.apply(in.text()));
     }
 
+    /**
+     * Register the picture to the specified document. The same picture is registered only once
+     * per document, and its relation id is reused.
+     * 
+     * @param document A target document.
+     * @param picture A picture to register.
+     * @return The relation id in the target document.
+     */
+    static String picture(XWPFDocument document, XWPFPictureData picture) {
+        Map<Long, List<XWPFPictureData>> registry = pictures.computeIfAbsent(document, key -> new ConcurrentHashMap());
+
+        // The checksum is computed only once and cached by the picture data itself, but the
+        // different pictures may have the same checksum. So the registered one is confirmed by bytes.
+        List<XWPFPictureData> registered = registry.computeIfAbsent(picture.getChecksum(), checksum -> new CopyOnWriteArrayList());
+        byte[] data = picture.getData();
+        for (XWPFPictureData candidate : registered) {
+            if (Arrays.equals(candidate.getData(), data)) {
+                return document.getRelationId(candidate);
+            }
+        }
+
+        try {
+            String id = document.addPictureData(data, picture.getPictureType());
+            registered.add(document.getPictureDataByID(id));
+            return id;
+        } catch (Exception e) {
+            throw I.quiet(e);
+        }
+    }
+
     /**
      * Select node by XPath.
      * 
@@ -9,8 +9,9 @@
  */
 package officelove.word;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import org.apache.poi.xwpf.usermodel.XWPFRun;
@@ -21,10 +22,10 @@ public class WordStyle {
     private static final String PREFIX = "LOVOFFICE_WORD_STYLE_";
 
     /** The magic number. */
-    private static int NUM = 0;
+    private static final AtomicInteger NUM = new AtomicInteger();
 
     /** The managed styles. */
-    private static final Map<String, WordStyle> styles = new HashMap();
+    private static final Map<String, WordStyle> styles = new ConcurrentHashMap();
 
     /** The identifier for this style. */
     private final String id;
@@ -36,7 +37,7 @@ public class WordStyle {
      * @param styling
      */
     private WordStyle(Consumer<XWPFRun> styling) {
-        this.id = PREFIX + String.format("%06d", NUM++);
+        this.id = PREFIX + String.format("%06d", NUM.getAndIncrement());
         this.styling = styling;
 
         styles.put(id, this);
@@ -27,6 +27,7 @@ public class Project extends bee.api.Project {
         require("com.github.teletha", "psychopath");
         require("com.github.teletha", "conjure");
         require("org.apache.poi", "poi-ooxml");
+        require("org.apache.commons", "commons-compress", "1.26.2");
         require("com.github.teletha", "antibug").atTest();
 
         versionControlSystem("https://github.com/teletha/officelove");
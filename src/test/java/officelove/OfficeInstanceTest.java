@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToIntFunction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import kiss.I;
+import officelove.LibreOffice.Conversion;
+import psychopath.Directory;
+import psychopath.File;
+import psychopath.Locator;
+
+@EnabledOnOs({OS.LINUX, OS.MAC})
+class OfficeInstanceTest {
+
+    /**
+     * The fake office command which copies the input file as the converted file, and appends the
+     * printed file name to the "printed" file in the same directory.
+     */
+    private static final String FAKE = """
+            #!/bin/sh
+            for arg in "$@"; do
+              case "$arg" in
+                -env:UserInstallation=file://*) profile="${arg#-env:UserInstallation=file://}" ;;
+                --accept=*) resident=true ;;
+                --convert-to) next=format ;;
+                --outdir) next=outdir ;;
+                --pt) next=printer ;;
+                -p) printer=default ;;
+                -*) ;;
+                *) case "$next" in
+                     format) format="$arg" ;;
+                     outdir) outdir="$arg" ;;
+                     printer) printer="$arg" ;;
+                     *) name=$(basename "$arg")
+                        case "$name" in slow*) sleep 60 ;; broken*) exit 1 ;; esac
+                        if [ -n "$printer" ]; then
+                          echo "$printer $name" >> "$(dirname "$arg")/printed"
+                        else
+                          cp "$arg" "$outdir/${name%.*}.$format"
+                        fi ;;
+                   esac
+                   next= ;;
+              esac
+            done
+            if [ -n "$resident" ]; then
+              mkdir -p "$profile/user"
+              while true; do sleep 1; done
+            fi
+            """;
+
+    /**
+     * Create the fake office command.
+     * 
+     * @return
+     */
+    private static String fake() throws Exception {
+        File file = Locator.temporaryFile("soffice");
+        Files.writeString(file.asJavaPath(), FAKE);
+        file.asJavaFile().setExecutable(true);
+        return file.toString();
+    }
+
+    /**
+     * Execute conversion by the specified instance.
+     * 
+     * @param instance
+     * @return
+     */
+    private static File convert(OfficeInstance instance) throws Exception {
+        return convert(instance::execute);
+    }
+
+    /**
+     * Execute conversion by the specified executor.
+     * 
+     * @param executor
+     * @return
+     */
+    private static File convert(ToIntFunction<List<String>> executor) throws Exception {
+        File input = Locator.temporaryFile("input.docx");
+        Files.writeString(input.asJavaPath(), "contents");
+        File output = input.parent().file("input.pdf");
+
+        assert executor.applyAsInt(List.of("--convert-to", "pdf", "--outdir", input.parent().toString(), input.toString())) == 0;
+        return output;
+    }
+
+    @Test
+    void convert() throws Exception {
+        OfficeInstance instance = new OfficeInstance(fake());
+
+        try {
+            File output = convert(instance);
+            assert Files.readString(output.asJavaPath()).equals("contents");
+            assert instance.isAlive();
+            assert instance.restarts() == 0;
+        } finally {
+            instance.shutdown();
+        }
+    }
+
+    @Test
+    void restartOnCrash() throws Exception {
+        OfficeInstance instance = new OfficeInstance(fake());
+
+        try {
+            convert(instance);
+            assert instance.isAlive();
+
+            // crash the resident process
+            ProcessHandle.current()
+                    .children()
+                    .filter(process -> process.info().arguments().map(args -> List.of(args).toString().contains("--accept")).orElse(false))
+                    .forEach(process -> process.destroyForcibly().onExit().join());
+            assert instance.isAlive() == false;
+
+            File output = convert(instance);
+            assert Files.readString(output.asJavaPath()).equals("contents");
+            assert instance.isAlive();
+            assert instance.restarts() == 1;
+        } finally {
+            instance.shutdown();
+        }
+    }
+
+    @Test
+    void pool() throws Exception {
+        OfficePool pool = new OfficePool(fake(), 2);
+
+        try {
+            List<CompletableFuture<File>> futures = I.signal(1, 2, 3, 4).map(i -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    return convert(pool::execute);
+                } catch (Exception e) {
+                    throw I.quiet(e);
+                }
+            })).toList();
+
+            for (CompletableFuture<File> future : futures) {
+                assert Files.readString(future.join().asJavaPath()).equals("contents");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void libreOffice() throws Exception {
+        LibreOffice.location(fake());
+
+        try {
+            File input = Locator.temporaryFile("test.docx");
+            Files.writeString(input.asJavaPath(), "contents");
+            File output = Locator.temporaryFile("converted.pdf");
+
+            LibreOffice.convert(input, output);
+            assert Files.readString(output.asJavaPath()).equals("contents");
+        } finally {
+            LibreOffice.shutdown();
+        }
+    }
+
+    @Test
+    void convertAll() throws Exception {
+        LibreOffice.location(fake());
+
+        try {
+            Directory input = Locator.temporaryDirectory();
+            List<File> files = I.signal(1, 2, 3).map(i -> input.file("doc" + i + ".docx")).toList();
+            for (File file : files) {
+                Files.writeString(file.asJavaPath(), file.base());
+            }
+            File missing = input.file("missing.docx");
+            Directory output = Locator.temporaryDirectory();
+
+            List<Conversion> conversions = LibreOffice.convertAll(List.of(files.get(0), missing, files.get(1), files.get(2)), "pdf", output);
+            assert conversions.size() == 4;
+            assert conversions.get(0).input() == files.get(0);
+            assert Files.readString(conversions.get(0).output().asJavaPath()).equals("doc1");
+            assert conversions.get(1).isSucceeded() == false;
+            assert Files.readString(conversions.get(2).output().asJavaPath()).equals("doc2");
+            assert Files.readString(conversions.get(3).output().asJavaPath()).equals("doc3");
+        } finally {
+            LibreOffice.shutdown();
+        }
+    }
+
+    @Test
+    void convertAllSameName() throws Exception {
+        LibreOffice.location(fake());
+
+        try {
+            List<File> files = I.signal("one", "two", "three").map(text -> {
+                File file = Locator.temporaryDirectory().file("doc.docx");
+                Files.writeString(file.asJavaPath(), text);
+                return file;
+            }).toList();
+            Directory output = Locator.temporaryDirectory();
+
+            List<Conversion> conversions = LibreOffice.convertAll(files, "pdf", output);
+            assert Files.readString(conversions.get(0).output().asJavaPath()).equals("one");
+            assert Files.readString(conversions.get(1).output().asJavaPath()).equals("two");
+            assert Files.readString(conversions.get(2).output().asJavaPath()).equals("three");
+            assert conversions.get(0).output().toString().equals(output.file("doc.pdf").toString());
+            assert conversions.get(1).output().toString().equals(output.directory("1").file("doc.pdf").toString());
+        } finally {
+            LibreOffice.shutdown();
+        }
+    }
+
+    @Test
+    void convertAsync() throws Exception {
+        LibreOffice.location(fake());
+
+        try {
+            File input = Locator.temporaryFile("test.docx");
+            Files.writeString(input.asJavaPath(), "contents");
+            File output = Locator.temporaryFile("converted.pdf");
+
+            assert LibreOffice.convertAsync(input, output).join() == output;
+            assert Files.readString(output.asJavaPath()).equals("contents");
+        } finally {
+            LibreOffice.shutdown();
+        }
+    }
+
+    @Test
+    void convertAsyncTimeout() throws Exception {
+        LibreOffice.location(fake());
+
+        try {
+            File input = Locator.temporaryFile("slow.docx");
+            Files.writeString(input.asJavaPath(), "contents");
+            File output = Locator.temporaryFile("converted.pdf");
+
+            try {
+                LibreOffice.convertAsync(input, output).orTimeout(500, TimeUnit.MILLISECONDS).join();
+                assert false;
+            } catch (CompletionException e) {
+                assert e.getCause() instanceof TimeoutException;
+            }
+
+            // the office process is killed
+            Thread.sleep(500);
+            assert ProcessHandle.current()
+                    .children()
+                    .noneMatch(process -> process.info().arguments().map(args -> List.of(args).toString().contains("slow")).orElse(false));
+            assert output.isAbsent();
+        } finally {
+            LibreOffice.shutdown();
+        }
+    }
+
+    @Test
+    void convertInMemory() throws Exception {
+        LibreOffice.location(fake());
+
+        try (InputStream output = LibreOffice.convert("contents".getBytes(StandardCharsets.UTF_8), "docx", "pdf")) {
+            assert new String(output.readAllBytes(), StandardCharsets.UTF_8).equals("contents");
+        } finally {
+            LibreOffice.shutdown();
+        }
+    }
+
+    @Test
+    void spooler() throws Exception {
+        LibreOffice.location(fake());
+
+        try {
+            Directory directory = Locator.temporaryDirectory();
+            List<File> files = I.signal(1, 2, 3).map(i -> directory.file("doc" + i + ".docx")).toList();
+            for (File file : files) {
+                Files.writeString(file.asJavaPath(), file.base());
+            }
+
+            PrintSpooler spooler = new PrintSpooler();
+            List<CompletableFuture<File>> futures = I.signal(files).map(file -> spooler.print(file, "printer")).toList();
+            for (CompletableFuture<File> future : futures) {
+                future.join();
+            }
+
+            assert Files.readAllLines(directory.file("printed").asJavaPath())
+                    .equals(List.of("printer doc1.docx", "printer doc2.docx", "printer doc3.docx"));
+            assert spooler.printed() == 3;
+            assert spooler.depth("printer") == 0;
+        } finally {
+            LibreOffice.shutdown();
+        }
+    }
+
+    @Test
+    void spoolerRetry() throws Exception {
+        LibreOffice.location(fake());
+
+        try {
+            File file = Locator.temporaryFile("broken.docx");
+            Files.writeString(file.asJavaPath(), "contents");
+
+            PrintSpooler spooler = new PrintSpooler(10, 1);
+            try {
+                spooler.print(file, null).join();
+                assert false;
+            } catch (CompletionException e) {
+                assert e.getCause() instanceof IllegalStateException;
+            }
+
+            assert spooler.retried() == 1;
+            assert spooler.failed() == 1;
+            assert spooler.depth() == 0;
+        } finally {
+            LibreOffice.shutdown();
+        }
+    }
+
+    @Test
+    void spoolerRetryEachDocument() throws Exception {
+        LibreOffice.location(fake());
+
+        try {
+            Directory directory = Locator.temporaryDirectory();
+            List<File> files = I.signal("first", "broken", "last").map(name -> directory.file(name + ".docx")).toList();
+            for (File file : files) {
+                Files.writeString(file.asJavaPath(), file.base());
+            }
+
+            PrintSpooler spooler = new PrintSpooler(10, 1);
+            List<CompletableFuture<File>> futures = I.signal(files).map(file -> spooler.print(file, "printer")).toList();
+            assert futures.get(0).handle((file, error) -> error == null).join();
+            assert futures.get(1).handle((file, error) -> error == null).join() == false;
+            assert futures.get(2).handle((file, error) -> error == null).join();
+
+            // the document after the broken one is printed only once
+            assert Files.readAllLines(directory.file("printed").asJavaPath()).stream().filter(line -> line.contains("last")).count() == 1;
+            assert spooler.printed() == 2;
+            assert spooler.failed() == 1;
+            assert spooler.depth() == 0;
+        } finally {
+            LibreOffice.shutdown();
+        }
+    }
+}
\ No newline at end of file
@@ -9,7 +9,29 @@
  */
 package officelove.excel;
 
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTRst;
+
+import kiss.I;
+import kiss.Signal;
+import officelove.excel.ColumnIndex.Column;
+import officelove.excel.Excel.Row;
+import officelove.excel.Excel.RowReader;
+import officelove.excel.Excel.SheetReader;
+import psychopath.File;
+import psychopath.Locator;
 
 class ExcelTest {
 
@@ -28,4 +50,357 @@ class ExcelTest {
 
         assert Excel.normalize("髙").equals("高") == false;
     }
+
+    @Test
+    void stream() {
+        File file = write(List.of("name", "age"), List.of("one", "1"), List.of("two", "2"), List.of("three", "3"));
+
+        List<RowReader> rows = Excel.stream(file, "Sheet0", "name").toList();
+        assert rows.size() == 3;
+        assert rows.get(0).text("name").equals("one");
+        assert rows.get(1).integer("age") == 2;
+        assert rows.get(2).text("name").equals("three");
+    }
+
+    @Test
+    void streamSkipBlank() {
+        File file = write(List.of("name", "age"), List.of("one", "1"), List.of(" ", "2"), List.of("three", "3"));
+
+        List<RowReader> rows = Excel.stream(file, "Sheet0", "name").toList();
+        assert rows.size() == 2;
+        assert rows.get(1).text("name").equals("three");
+    }
+
+    @Test
+    void streamTake() {
+        File file = write(List.of("name"), List.of("one"), List.of("two"), List.of("three"));
+
+        List<RowReader> rows = Excel.stream(file, "Sheet0", "name").take(1).toList();
+        assert rows.size() == 1;
+        assert rows.get(0).text("name").equals("one");
+    }
+
+    @Test
+    void streamSheets() {
+        File file = write(List.of("name"), List.of("one"));
+
+        assert Excel.stream(file).map(sheet -> sheet.name()).toList().equals(List.of("Sheet0"));
+        assert Excel.stream(file).flatMap(sheet -> sheet.read("name")).map(row -> row.text("name")).toList().equals(List.of("one"));
+    }
+
+    @Test
+    void streamByColumn() {
+        File file = write(List.of("name", "ａｇｅ"), List.of("one", "1"), List.of("two", "2"));
+
+        SheetReader sheet = Excel.stream(file).toList().get(0);
+        ColumnIndex columns = sheet.columns();
+        Column name = columns.column("name");
+        Column age = columns.column("age");
+
+        List<RowReader> rows = sheet.read("name").toList();
+        assert rows.get(0).columns() == columns;
+        assert rows.get(0).text(name).equals("one");
+        assert rows.get(1).integer(age) == 2;
+        assert columns.indexOf("unknown") == -1;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> columns.column("unknown"));
+    }
+
+    @Test
+    void readRecord() {
+        File file = write(List.of("name", "age"), List.of("one", "1"), List.of(" ", "2"), List.of("three", "3"));
+
+        List<Person> people = Excel.stream(file).flatMap(sheet -> sheet.read(Person.class)).toList();
+        assert people.size() == 2;
+        assert people.get(0).equals(new Person("one", 1, ""));
+        assert people.get(1).equals(new Person("three", 3, ""));
+    }
+
+    @Test
+    void readRecordByHeader() {
+        File file = write(List.of("name", "age"), List.of("one", "1"), List.of(" ", "2"));
+
+        List<Person> people = Excel.stream(file).flatMap(sheet -> sheet.read("age", Person.class)).toList();
+        assert people.size() == 2;
+        assert people.get(1).age() == 2;
+    }
+
+    /**
+     * Test record.
+     */
+    private record Person(String name, int age, String unknown) {
+    }
+
+    @Test
+    void readTypedRecord() throws Exception {
+        File file = workbook(new Object[][] {{"code", "price", "amount", "date"}, {10d, "1.5", 3d, 45000d}, {"20", 2.25d, "", ""}});
+
+        List<Item> streamed = Excel.stream(file).flatMap(sheet -> sheet.read(Item.class)).toList();
+        List<Item> loaded = Excel.read(file).flatMap(sheet -> sheet.read(Item.class)).toList();
+
+        for (List<Item> items : List.of(streamed, loaded)) {
+            assert items.size() == 2;
+            assert items.get(0).equals(new Item("10", 1.5, 3L, LocalDate.of(2023, 3, 15)));
+            assert items.get(1).equals(new Item("20", 2.25, 0L, null));
+        }
+    }
+
+    /**
+     * Test record.
+     */
+    private record Item(String code, double price, Long amount, LocalDate date) {
+    }
+
+    @Test
+    void columnar() throws Exception {
+        File file = workbook(new Object[][] {{"name", "age"}, {"one", 10d}, {"two", null}, {"one", 30d}});
+
+        for (ColumnarSheet sheet : List.of(ColumnarSheet.load(file, "Sheet0"), Excel.read(file).toList().get(0).columnar())) {
+            Column name = sheet.column("name");
+            Column age = sheet.column("age");
+
+            assert sheet.size() == 3;
+            assert sheet.text(name, 0).equals("one");
+            assert sheet.code(name, 0) == sheet.code(name, 2);
+            assert sheet.code(name, 0) == sheet.code("one");
+            assert sheet.code("unknown") == -1;
+            assert sheet.isBlank(age, 1);
+            assert sheet.number(age, 2) == 30;
+            assert sheet.count(name) == 3;
+            assert sheet.sum(age) == 40;
+            assert sheet.sum(age, sheet.select(name, "one"::equals)) == 40;
+            assert sheet.select(age, value -> value > 20).cardinality() == 1;
+        }
+    }
+
+    @Test
+    void writeSignal() {
+        File file = Locator.temporaryFile("test.xlsx");
+        List<String> items = IntStream.range(0, 1000).mapToObj(String::valueOf).toList();
+
+        Excel.write(file, I.signal("value").concat(I.signal(items)), (writer, item) -> writer.add(item));
+
+        List<RowReader> rows = Excel.stream(file, "Sheet0", "value").toList();
+        assert rows.size() == 1000;
+        assert rows.get(0).integer("value") == 0;
+        assert rows.get(999).integer("value") == 999;
+    }
+
+    @Test
+    void writeAsyncSignal() {
+        File file = Locator.temporaryFile("test.xlsx");
+        List<String> items = IntStream.range(0, 1000).mapToObj(String::valueOf).toList();
+
+        Excel.write(file, I.signal("value").concat(I.signal(items)).subscribeOn(Thread::startVirtualThread), (writer, item) -> writer
+                .add(item));
+
+        List<RowReader> rows = Excel.stream(file, "Sheet0", "value").toList();
+        assert rows.size() == 1000;
+        assert rows.get(999).integer("value") == 999;
+    }
+
+    @Test
+    void writeAsyncSignalError() {
+        File file = Locator.temporaryFile("test.xlsx");
+        Signal<String> items = I.signal("value").concat(I.signalError(new IllegalStateException())).subscribeOn(Thread::startVirtualThread);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> Excel.write(file, items, (writer, item) -> writer.add(item)));
+    }
+
+    @Test
+    void writeIterator() {
+        File file = Locator.temporaryFile("test.xlsx");
+        List<String> items = IntStream.range(0, 1000).mapToObj(String::valueOf).toList();
+
+        Excel.write(file, I.signal("value").concat(I.signal(items)).toList().iterator(), (writer, item) -> writer.add(item));
+
+        assert Excel.stream(file, "Sheet0", "value").toList().size() == 1000;
+    }
+
+    @Test
+    void writeModelPerWorkbook() {
+        Excel one = new Excel();
+        Excel two = new Excel();
+        Object model = new Object();
+        List<Row> rows = new ArrayList();
+
+        one.write(I.signal(model), (m, row) -> rows.add(row));
+        two.write(I.signal(model), (m, row) -> rows.add(row));
+        one.write(I.signal(model), (m, row) -> rows.add(row));
+
+        assert rows.get(0) != rows.get(1);
+        assert rows.get(0) == rows.get(2);
+    }
+
+    @Test
+    void writeModelsToBlankRows() {
+        Excel excel = new Excel(write(List.of("name"), List.of("one"), List.of("two")), "Sheet0");
+        List<Row> rows = new ArrayList();
+
+        excel.write(I.signal(new Object(), new Object(), new Object()), (m, row) -> rows.add(row));
+
+        assert rows.stream().distinct().count() == 3;
+        assert excel.sheet.getLastRowNum() == 5;
+        assert excel.sheet.getRow(1).getCell(0).getStringCellValue().equals("one");
+        assert excel.sheet.getRow(2).getCell(0).getStringCellValue().equals("two");
+    }
+
+    @Test
+    void readMergedCell() throws Exception {
+        Object[][] rows = {{"name", "group"}, {"a", "X"}, {"b", ""}, {"c", ""}, {"d", "Y"}, {"e", ""}};
+        File file = workbook(rows, new CellRangeAddress(1, 3, 1, 1), new CellRangeAddress(4, 5, 1, 1));
+
+        List<RowReader> readers = Excel.read(file, "Sheet0", "name").toList();
+        assert readers.get(1).text("group").equals("X");
+        assert readers.get(2).text("group").equals("X");
+        assert readers.get(3).text("group").equals("Y");
+    }
+
+    @Test
+    void mergedRegions() throws Exception {
+        try (XSSFWorkbook book = new XSSFWorkbook()) {
+            XSSFSheet sheet = book.createSheet();
+            sheet.addMergedRegion(new CellRangeAddress(0, 99, 0, 0));
+            sheet.addMergedRegion(new CellRangeAddress(10, 11, 1, 2));
+            sheet.addMergedRegion(new CellRangeAddress(50, 50, 1, 3));
+
+            assert MergedRegions.find(sheet, 60, 0).formatAsString().equals("A1:A100");
+            assert MergedRegions.find(sheet, 11, 2).formatAsString().equals("B11:C12");
+            assert MergedRegions.find(sheet, 12, 2) == null;
+            assert MergedRegions.find(sheet, 50, 3).formatAsString().equals("B51:D51");
+            assert MergedRegions.find(sheet, 100, 0) == null;
+
+            // replace the region with the same number of regions
+            sheet.removeMergedRegion(1);
+            sheet.addMergedRegion(new CellRangeAddress(20, 21, 1, 2));
+            assert MergedRegions.find(sheet, 11, 2) == null;
+            assert MergedRegions.find(sheet, 21, 1).formatAsString().equals("B21:C22");
+        }
+    }
+
+    @Test
+    void streamAllSheets() throws Exception {
+        File file = Locator.temporaryFile("sheets.xlsx");
+        try (XSSFWorkbook book = new XSSFWorkbook(); OutputStream output = file.newOutputStream()) {
+            for (String name : List.of("A", "B", "C")) {
+                XSSFSheet sheet = book.createSheet(name);
+                sheet.createRow(0).createCell(0).setCellValue("name");
+                for (int i = 1; i <= 100; i++) {
+                    sheet.createRow(i).createCell(0).setCellValue(name + i);
+                }
+            }
+            book.createSheet("NoHeader").createRow(0).createCell(0).setCellValue("other");
+            book.write(output);
+        }
+
+        List<String> ordered = Excel.stream(file, "name", 2, true).map(row -> row.sheet() + ":" + row.text("name")).toList();
+        assert ordered.size() == 300;
+        assert ordered.get(0).equals("A:A1");
+        assert ordered.get(100).equals("B:B1");
+        assert ordered.get(299).equals("C:C100");
+
+        List<String> unordered = Excel.stream(file, "name", 3, false).map(row -> row.sheet() + ":" + row.text("name")).toList();
+        assert unordered.size() == 300;
+        assert unordered.containsAll(ordered);
+    }
+
+    @Test
+    void streamSharedStrings() throws Exception {
+        File file = workbook(new Object[][] {{"name", "dept"}, {"a", "営業部"}, {"b", "開発部"}, {"c", "営業部"}, {"d", "line_x000D_"}});
+
+        List<RowReader> rows = Excel.stream(file, "Sheet0", "name").toList();
+        assert rows.get(0).text("dept").equals("営業部");
+        assert rows.get(0).text("dept") == rows.get(2).text("dept");
+        assert rows.get(1).text("dept").equals("開発部");
+        assert rows.get(3).text("dept").equals("line_x000D_");
+    }
+
+    @Test
+    void streamSharedStringsWithPhonetic() throws Exception {
+        File file = Locator.temporaryFile("phonetic.xlsx");
+        try (XSSFWorkbook book = new XSSFWorkbook(); OutputStream output = file.newOutputStream()) {
+            XSSFRichTextString text = new XSSFRichTextString();
+            text.getCTRst()
+                    .set(CTRst.Factory.parse("<xml-fragment xmlns='http://schemas.openxmlformats.org/spreadsheetml/2006/main'>" //
+                            + "<r><t>東京</t></r><r><t>都</t></r>" //
+                            + "<rPh sb='0' eb='2'><t>トウキョウ</t></rPh><phoneticPr fontId='0'/>" //
+                            + "</xml-fragment>"));
+
+            XSSFSheet sheet = book.createSheet("Sheet0");
+            sheet.createRow(0).createCell(0).setCellValue("name");
+            sheet.createRow(1).createCell(0).setCellValue(text);
+            book.write(output);
+        }
+
+        List<RowReader> rows = Excel.stream(file, "Sheet0", "name").toList();
+        assert rows.get(0).text("name").equals("東京都");
+    }
+
+    @Test
+    void streamDate1904() throws Exception {
+        File file = Locator.temporaryFile("date1904.xlsx");
+        try (XSSFWorkbook book = new XSSFWorkbook(); OutputStream output = file.newOutputStream()) {
+            book.getCTWorkbook().getWorkbookPr().setDate1904(true);
+
+            XSSFSheet sheet = book.createSheet("Sheet0");
+            sheet.createRow(0).createCell(0).setCellValue("date");
+            sheet.createRow(1).createCell(0).setCellValue(1.0);
+            book.write(output);
+        }
+
+        LocalDate streamed = Excel.stream(file, "Sheet0", "date").toList().get(0).date("date");
+        assert streamed.equals(LocalDate.of(1904, 1, 2));
+        assert streamed.equals(Excel.read(file, "Sheet0", "date").toList().get(0).date("date"));
+    }
+
+    /**
+     * Write the test workbook which has typed cells.
+     * 
+     * @param rows
+     * @param merged
+     * @return
+     */
+    private static File workbook(Object[][] rows, CellRangeAddress... merged) throws Exception {
+        File file = Locator.temporaryFile("test.xlsx");
+        try (XSSFWorkbook book = new XSSFWorkbook(); OutputStream output = file.newOutputStream()) {
+            XSSFSheet sheet = book.createSheet("Sheet0");
+
+            for (int i = 0; i < rows.length; i++) {
+                XSSFRow row = sheet.createRow(i);
+                for (int j = 0; j < rows[i].length; j++) {
+                    if (rows[i][j] instanceof String text) {
+                        if (text.isEmpty()) {
+                            row.createCell(j);
+                        } else {
+                            row.createCell(j).setCellValue(text);
+                        }
+                    } else if (rows[i][j] instanceof Double number) {
+                        row.createCell(j).setCellValue(number);
+                    }
+                }
+            }
+
+            for (CellRangeAddress range : merged) {
+                sheet.addMergedRegion(range);
+            }
+            book.write(output);
+        }
+        return file;
+    }
+
+    /**
+     * Write the test workbook.
+     * 
+     * @param rows
+     * @return
+     */
+    @SafeVarargs
+    private static File write(List<String>... rows) {
+        File file = Locator.temporaryFile("test.xlsx");
+        Excel.write(file, List.of(rows), (writer, row) -> {
+            for (String cell : row) {
+                writer.add(cell);
+            }
+        });
+        return file;
+    }
 }
\ No newline at end of file
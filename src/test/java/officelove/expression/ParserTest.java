@@ -17,6 +17,8 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import kiss.I;
+import officelove.expression.Expression.Step;
+import officelove.expression.builtin.NumberResolver;
 
 class ParserTest {
 
@@ -73,6 +75,21 @@ class ParserTest {
         assert parser.resolve("sum( 1 , 2 )").equals(3);
     }
 
+    @Test
+    void methodRepeatedly() {
+        Parser parser = new Parser(new MethodCall());
+        for (int i = 0; i < 10; i++) {
+            assert parser.resolve("sum(1,2)").equals(3);
+            assert parser.resolve("text(World)").equals("Hello World");
+        }
+    }
+
+    @Test
+    void staticMethod() {
+        Parser parser = new Parser(new MethodCall());
+        assert parser.resolve("constant").equals("constant");
+    }
+
     @Test
     void intResolver() {
         Parser parser = new Parser(new Person("one", 10));
@@ -100,6 +117,54 @@ class ParserTest {
         assert parser.resolve("time - 10min").equals(LocalTime.of(10, 20));
     }
 
+    @Test
+    void compiled() {
+        assert Expression.of("name") == Expression.of("name");
+        assert Expression.of("name?").optional;
+        assert Expression.of("name?").text.equals("name");
+    }
+
+    @Test
+    void compiledMatch() {
+        NumberResolver resolver = new NumberResolver();
+
+        // the matcher is not shared between evaluations
+        Step step = Expression.of("+15").steps.get(1);
+        assert step.match(resolver) != step.match(resolver);
+        assert step.match(resolver).group(2).equals("15");
+
+        // the state changed by resolver does not leak into the next evaluation
+        step.match(resolver).reset("-20").find();
+        assert step.match(resolver).group(2).equals("15");
+
+        assert Expression.of("name").steps.get(0).match(resolver) == null;
+    }
+
+    @Test
+    void fatalErrorInMethod() {
+        Parser parser = new Parser(new MethodCall());
+        Assertions.assertThrows(StackOverflowError.class, () -> parser.resolve("fatal"));
+    }
+
+    @Test
+    void compiledOnDifferentTypes() {
+        assert new Parser(new MethodCall()).resolve("text").equals("text");
+        assert new Parser(new TextField("field")).resolve("text").equals("field");
+        assert new Parser(new MethodCall()).resolve("text").equals("text");
+    }
+
+    /**
+     * Test model.
+     */
+    static class TextField {
+
+        public String text;
+
+        TextField(String text) {
+            this.text = text;
+        }
+    }
+
     /**
      * Test model.
      */
@@ -166,6 +231,14 @@ class ParserTest {
         public int sum(int first, int second) {
             return first + second;
         }
+
+        public String fatal() {
+            throw new StackOverflowError();
+        }
+
+        public static String constant() {
+            return "constant";
+        }
     }
 
     /**
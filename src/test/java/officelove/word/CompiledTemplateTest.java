@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.word;
+
+import java.util.List;
+
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.junit.jupiter.api.Test;
+
+import kiss.I;
+import psychopath.Directory;
+import psychopath.Locator;
+
+class CompiledTemplateTest extends WordTestSupport {
+
+    private static Directory base = Locator.directory("src/test/resources/officelove/word");
+
+    @Test
+    void evaluate() {
+        CompiledTemplate template = new CompiledTemplate(base.file("variable.docx"));
+        assert template.create().paragraphWith("value") == null;
+        assert template.evaluate(new Field("value")).paragraphWith("value") != null;
+    }
+
+    @Test
+    void evaluateManyTimes() {
+        CompiledTemplate template = new CompiledTemplate(base.file("variable.docx"));
+        assert template.evaluate(new Field("one")).paragraphWith("one") != null;
+        assert template.evaluate(new Field("two")).paragraphWith("two") != null;
+        assert template.evaluate(new Field("two")).paragraphWith("one") == null;
+    }
+
+    @Test
+    void condition() {
+        CompiledTemplate template = new CompiledTemplate(base.file("condition.docx"));
+        assert template.evaluate(new Condition(true)).paragraphWith("show") != null;
+        assert template.evaluate(new Condition(false)).paragraphWith("show") == null;
+    }
+
+    @Test
+    void sameAsWord() {
+        CompiledTemplate template = new CompiledTemplate(base.file("style/bold.docx"));
+        TemplateTest.Text context = new TemplateTest.Text("success");
+
+        assert verifyBody(template.evaluate(null, context), word("style/bold").evaluate(null, context));
+    }
+
+    @Test
+    void evaluateAndMerge() {
+        Word word = new Word(base.file("variable.docx")).evaluateAndMerge(List.of(new Field("one"), new Field("two")));
+        assert word.paragraphWith("one") != null;
+        assert word.paragraphWith("two") != null;
+    }
+
+    @Test
+    void evaluateAndMergeInParallel() {
+        List<Field> models = I.signal("one", "two", "three", "four", "five").map(Field::new).toList();
+        Word parallel = new Word(base.file("variable.docx")).evaluateAndMergeInParallel(models);
+        Word sequential = new Word(base.file("variable.docx")).evaluateAndMerge(models);
+
+        assert parallel.paragraphs().map(XWPFParagraph::getText).toList().equals(sequential.paragraphs().map(XWPFParagraph::getText).toList());
+    }
+
+    /**
+     * Test model.
+     */
+    static class Field {
+
+        public String publicField;
+
+        public String inTable = "table value";
+
+        Field(String value) {
+            this.publicField = value;
+        }
+    }
+
+    /**
+     * Test model.
+     */
+    static class Condition {
+
+        public boolean condition;
+
+        Condition(boolean condition) {
+            this.condition = condition;
+        }
+    }
+}
\ No newline at end of file
@@ -9,10 +9,20 @@
  */
 package officelove.word;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Test;
 
+import kiss.I;
+import kiss.Signal;
+import officelove.word.CompiledTemplateTest.Field;
+import officelove.word.TemplateDefinitions.Publication;
 import psychopath.Directory;
 import psychopath.Locator;
 
@@ -44,6 +54,103 @@ class TemplateDefinitionTest extends WordTestSupport {
         assert defs.MergeableContext.types().get(1) == Locale.class;
     }
 
+    @Test
+    void compile() {
+        assert defs.compile(defs.variable) == defs.compile(defs.variable);
+    }
+
+    @Test
+    void compileConcurrently() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CompiledTemplate>> futures = new ArrayList();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return defs.compile(defs.variable);
+                }));
+            }
+            start.countDown();
+
+            // the template is compiled only once
+            for (Future<CompiledTemplate> future : futures) {
+                assert future.get() == futures.get(0).get();
+            }
+        }
+    }
+
+    @Test
+    void compileModified() {
+        java.io.File file = defs.variable.file().asJavaFile();
+        long modified = file.lastModified();
+        CompiledTemplate template = defs.compile(defs.variable);
+
+        try {
+            file.setLastModified(modified + 2000);
+            assert defs.compile(defs.variable) != template;
+        } finally {
+            file.setLastModified(modified);
+        }
+    }
+
+    @Test
+    void publishAll() {
+        Directory out = Locator.temporaryDirectory();
+        List<Publication<Field>> results = defs.variable.publishAll(I.signal("one", "two", "three").map(Field::new), field -> out
+                .file(field.publicField + ".docx")).toList();
+
+        assert results.size() == 3;
+        assert results.stream().allMatch(Publication::isSucceeded);
+        assert out.file("one.docx").isPresent();
+        assert out.file("two.docx").isPresent();
+        assert out.file("three.docx").isPresent();
+    }
+
+    @Test
+    void publishAllWithFailure() {
+        Directory out = Locator.temporaryDirectory();
+        List<Publication<Field>> results = defs.variable.publishAll(I.signal("ok", "ng").map(Field::new), field -> {
+            if (field.publicField.equals("ng")) {
+                throw new IllegalStateException();
+            }
+            return out.file(field.publicField + ".docx");
+        }).toList();
+
+        assert results.size() == 2;
+        assert results.stream().filter(Publication::isSucceeded).count() == 1;
+        assert results.stream().anyMatch(p -> p.error() instanceof IllegalStateException);
+        assert out.file("ok.docx").isPresent();
+    }
+
+    @Test
+    void publishAllAsync() {
+        Directory out = Locator.temporaryDirectory();
+        Signal<Field> contexts = I.signal("one", "two", "three").map(Field::new).subscribeOn(Thread::startVirtualThread);
+        List<Publication<Field>> results = defs.variable.publishAll(contexts, field -> out.file(field.publicField + ".docx")).toList();
+
+        assert results.size() == 3;
+        assert out.file("one.docx").isPresent();
+        assert out.file("three.docx").isPresent();
+    }
+
+    @Test
+    void publishAllAsyncError() {
+        Directory out = Locator.temporaryDirectory();
+        Signal<Field> contexts = I.signal("one")
+                .map(Field::new)
+                .concat(I.signalError(new IllegalStateException()))
+                .subscribeOn(Thread::startVirtualThread);
+        List<Publication<Field>> results = new ArrayList();
+        List<Throwable> errors = new ArrayList();
+
+        defs.variable.publishAll(contexts, field -> out.file(field.publicField + ".docx")).to(results::add, errors::add);
+
+        assert results.size() == 1;
+        assert errors.size() == 1;
+        assert errors.get(0) instanceof IllegalStateException;
+    }
+
     /**
      * For test.
      */
@@ -57,6 +164,8 @@ class TemplateDefinitionTest extends WordTestSupport {
 
         public final Template2<Mergeable<String>, Locale> MergeableContext = new Template2();
 
+        public final Template1<Field> variable = new Template1();
+
         /**
          * {@inheritDoc}
          */
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.word;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.apache.poi.util.Units;
+import org.apache.poi.xwpf.usermodel.Document;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFPicture;
+import org.apache.poi.xwpf.usermodel.XWPFPictureData;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.junit.jupiter.api.Test;
+import org.openxmlformats.schemas.drawingml.x2006.main.CTBlip;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTPageMar;
+
+import psychopath.File;
+import psychopath.Locator;
+
+class WordMergeTest extends WordTestSupport {
+
+    @Test
+    void merge() {
+        Word word = word("variable").evaluate(new CompiledTemplateTest.Field("one"));
+        int size = word.docment().getBodyElements().size();
+
+        word.merge(word("variable").evaluate(new CompiledTemplateTest.Field("two")));
+        assert word.docment().getBodyElements().size() == size * 2;
+        assert word.paragraphWith("one") != null;
+        assert word.paragraphWith("two") != null;
+    }
+
+    @Test
+    void mergePicture() throws Exception {
+        File file = picture();
+        Word word = new Word(file).merge(new Word(file)).merge(new Word(file));
+
+        List<XWPFParagraph> paragraphs = word.docment().getParagraphs();
+        assert paragraphs.size() == 3;
+        for (XWPFParagraph paragraph : paragraphs) {
+            List<XWPFPicture> pictures = paragraph.getRuns().get(0).getEmbeddedPictures();
+            assert pictures.size() == 1;
+            assert pictures.get(0).getPictureData() != null;
+        }
+        assert word.docment().getAllPictures().size() == 1;
+    }
+
+    @Test
+    void copyPicture() throws Exception {
+        XWPFRun picture = new Word(picture()).docment().getParagraphs().get(0).getRuns().get(0);
+        XWPFDocument document = new XWPFDocument();
+
+        for (int i = 0; i < 3; i++) {
+            WordHeleper.copy(picture, document.createParagraph().createRun(), v -> v);
+        }
+
+        assert document.getAllPictures().size() == 1;
+        assert document.getParagraphs()
+                .stream()
+                .map(p -> ((CTBlip) p.getCTP().selectPath("declare namespace a='" + CTBlip.type.getName()
+                        .getNamespaceURI() + "' .//a:blip")[0]).getEmbed())
+                .distinct()
+                .count() == 1;
+    }
+
+    @Test
+    void copyPictureWithSameChecksum() throws Exception {
+        // these texts have the same CRC32
+        XWPFDocument source = new XWPFDocument();
+        XWPFPictureData one = source.getPictureDataByID(source.addPictureData("plumless".getBytes(), Document.PICTURE_TYPE_PNG));
+        XWPFPictureData other = source.getPictureDataByID(source.addPictureData("buckeroo".getBytes(), Document.PICTURE_TYPE_PNG));
+        assert one.getChecksum() == other.getChecksum();
+
+        XWPFDocument document = new XWPFDocument();
+        String oneId = WordHeleper.picture(document, one);
+        String otherId = WordHeleper.picture(document, other);
+        assert !oneId.equals(otherId);
+        assert oneId.equals(WordHeleper.picture(document, one));
+        assert otherId.equals(WordHeleper.picture(document, other));
+        assert Arrays.equals(document.getPictureDataByID(oneId).getData(), "plumless".getBytes());
+        assert Arrays.equals(document.getPictureDataByID(otherId).getData(), "buckeroo".getBytes());
+    }
+
+    @Test
+    void mergeChart() throws Exception {
+        File file = Locator.temporaryFile("chart.docx");
+        try (XWPFDocument document = new XWPFDocument(); OutputStream output = file.newOutputStream()) {
+            document.createChart(document.createParagraph().createRun(), Units.toEMU(100), Units.toEMU(100));
+            document.write(output);
+        }
+
+        Word word = new Word(file).merge(new Word(file)).merge(new Word(file));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        word.save(bytes, SaveOptions.storeOnly());
+
+        try (XWPFDocument merged = new XWPFDocument(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assert merged.getCharts().size() == 3;
+            assert merged.getCharts().stream().map(chart -> chart.getPackagePart().getPartName()).distinct().count() == 3;
+        }
+    }
+
+    /**
+     * Create the document which has one picture.
+     * 
+     * @return
+     */
+    private static File picture() throws Exception {
+        ByteArrayOutputStream image = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png", image);
+
+        File file = Locator.temporaryFile("picture.docx");
+        try (XWPFDocument document = new XWPFDocument(); OutputStream output = file.newOutputStream()) {
+            XWPFRun run = document.createParagraph().createRun();
+            run.addPicture(new ByteArrayInputStream(image.toByteArray()), Document.PICTURE_TYPE_PNG, "image.png", Units.toEMU(4), Units
+                    .toEMU(4));
+
+            CTPageMar margin = document.getDocument().getBody().addNewSectPr().addNewPgMar();
+            margin.setTop(BigInteger.valueOf(1440));
+            margin.setBottom(BigInteger.valueOf(1440));
+            margin.setLeft(BigInteger.valueOf(1440));
+            margin.setRight(BigInteger.valueOf(1440));
+            document.write(output);
+        }
+        return file;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2024 The OFFICELOVE Development Team
+ *
+ * Licensed under the MIT License (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          https://opensource.org/licenses/MIT
+ */
+package officelove.word;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class WordSaveTest extends WordTestSupport {
+
+    @Test
+    void stream() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        word("variable").evaluate(new CompiledTemplateTest.Field("saved")).save(output);
+
+        try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(output.toByteArray()))) {
+            assert document.getParagraphs().stream().anyMatch(p -> p.getText().contains("saved"));
+        }
+    }
+
+    @Test
+    void channel() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        word("variable").save(Channels.newChannel(output), SaveOptions.defaults());
+
+        try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(output.toByteArray()))) {
+            assert !document.getParagraphs().isEmpty();
+        }
+    }
+
+    @Test
+    void level() {
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        ByteArrayOutputStream best = new ByteArrayOutputStream();
+        word("variable").save(stored, SaveOptions.storeOnly());
+        word("variable").save(best, SaveOptions.defaults().level(9));
+
+        assert best.size() < stored.size();
+    }
+
+    @Test
+    void storeOnly() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        word("variable").save(output, SaveOptions.storeOnly());
+
+        int count = 0;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                assert entry.getMethod() == ZipEntry.STORED;
+                count++;
+            }
+        }
+        assert 0 < count;
+
+        try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(output.toByteArray()))) {
+            assert !document.getParagraphs().isEmpty();
+        }
+    }
+
+    @Test
+    void zip64() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        word("variable").save(output, SaveOptions.defaults().zip64(true));
+
+        try (XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(output.toByteArray()))) {
+            assert !document.getParagraphs().isEmpty();
+        }
+
+        ByteArrayOutputStream normal = new ByteArrayOutputStream();
+        word("variable").save(normal, SaveOptions.defaults());
+
+        assert zip64(output.toByteArray());
+        assert !zip64(normal.toByteArray());
+    }
+
+    /**
+     * Check whether the archive has the zip64 end of central directory record.
+     * 
+     * @param archive
+     * @return
+     */
+    private static boolean zip64(byte[] archive) {
+        for (int i = archive.length - 4; 0 <= i; i--) {
+            if (archive[i] == 'P' && archive[i + 1] == 'K' && archive[i + 2] == 6 && archive[i + 3] == 6) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void invalidLevel() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SaveOptions.defaults().level(10));
+    }
+}
\ No newline at end of file